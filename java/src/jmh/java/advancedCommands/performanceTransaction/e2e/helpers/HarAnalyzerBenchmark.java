@@ -0,0 +1,162 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis of the HAR file of a Performance Transaction, i.e. what extractHARFileMetrics() and analyzeHARFile()
+ * do once the file is downloaded.
+ *
+ * The synthetic HARs have realistic entries with response bodies, so most of their size is content that the
+ * analyzer has to skip. The fork gets a 256 MB heap: the 500 MB HAR only fits if the analyzer really streams.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class HarAnalyzerBenchmark {
+
+    private static final String[] HOSTS = {"api.experibank.com", "cdn.experibank.com", "analytics.example.com", "fonts.example.com"};
+    private static final String[] MIME_TYPES = {"application/json; charset=utf-8", "image/png", "text/html", "application/javascript"};
+    private static final int MAX_BODY_CHARS = 32 * 1024;
+
+    @Param({"1", "10", "100", "500"})
+    public int harSizeMb;
+
+    private Path harFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        harFile = Files.createTempFile("benchmark-" + harSizeMb + "mb-", ".har");
+        writeHar(harFile, harSizeMb * 1024L * 1024L);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(harFile);
+    }
+
+    @Benchmark
+    public HarMetrics analyze() throws IOException {
+        return HarAnalyzer.analyze(harFile);
+    }
+
+    // PerformanceHelpers.extractHARFileMetrics() without the download
+    @Benchmark
+    public ArrayList<String> extractMetrics() throws IOException {
+        return PerformanceHelpers.summarizeHARMetrics(HarAnalyzer.analyze(harFile));
+    }
+
+    private static void writeHar(Path file, long targetBytes) throws IOException {
+        Random random = new Random(42);
+        char[] body = new char[MAX_BODY_CHARS];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (char) ('A' + random.nextInt(26));
+        }
+        long started = Instant.parse("2025-01-01T10:00:00Z").toEpochMilli();
+
+        try (CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+             JsonGenerator generator = new JsonFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("log");
+            generator.writeStringField("version", "1.2");
+            generator.writeObjectFieldStart("creator");
+            generator.writeStringField("name", "HarAnalyzerBenchmark");
+            generator.writeEndObject();
+            generator.writeArrayFieldStart("entries");
+
+            int index = 0;
+            while (out.count + generator.getOutputBuffered() < targetBytes) {
+                String host = HOSTS[index % HOSTS.length];
+                String mimeType = MIME_TYPES[random.nextInt(MIME_TYPES.length)];
+                int bodyChars = random.nextInt(MAX_BODY_CHARS);
+                double[] timings = new double[HarMetrics.TIMING_PHASES.length];
+                double time = 0;
+                for (int phase = 0; phase < timings.length; phase++) {
+                    timings[phase] = random.nextInt(50);
+                    time += timings[phase];
+                }
+
+                generator.writeStartObject();
+                generator.writeStringField("startedDateTime", Instant.ofEpochMilli(started + index * 25L).toString());
+                generator.writeNumberField("time", time);
+                generator.writeObjectFieldStart("request");
+                generator.writeStringField("method", "GET");
+                generator.writeStringField("url", "https://" + host + "/resources/" + index + "?session=" + random.nextInt());
+                generator.writeArrayFieldStart("headers");
+                generator.writeStartObject();
+                generator.writeStringField("name", "Accept");
+                generator.writeStringField("value", "*/*");
+                generator.writeEndObject();
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeObjectFieldStart("response");
+                generator.writeNumberField("status", random.nextInt(20) == 0 ? 404 : 200);
+                generator.writeNumberField("bodySize", bodyChars);
+                generator.writeObjectFieldStart("content");
+                generator.writeNumberField("size", bodyChars);
+                generator.writeStringField("mimeType", mimeType);
+                generator.writeFieldName("text");
+                generator.writeString(body, 0, bodyChars);
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeObjectFieldStart("timings");
+                for (int phase = 0; phase < timings.length; phase++) {
+                    generator.writeNumberField(HarMetrics.TIMING_PHASES[phase], timings[phase]);
+                }
+                generator.writeEndObject();
+                generator.writeEndObject();
+                index++;
+            }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
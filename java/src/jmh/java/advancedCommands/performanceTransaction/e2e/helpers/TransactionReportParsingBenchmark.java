@@ -0,0 +1,98 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the Performance Transaction responses.
+ *
+ * getPropertyFromPerformanceTransactionReport() parses the endPerformanceTransaction response and then the JSON
+ * string in its "text" field on every call, and each transaction reads three properties that way
+ * (transactionId when ending the capture, then link and transactionId in the tests). The Reporter API response
+ * is parsed once into TransactionMetrics, whose numeric values are parsed again when compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionReportParsingBenchmark {
+
+    private static final String[] NUMERIC_METRICS = {"cpuAvg", "cpuMax", "memAvg", "memMax", "batteryAvg", "batteryMax", "duration", "speedIndex"};
+
+    private PerformanceHelpers helpers;
+    private String endTransactionResponse;
+    private String transactionApiResponse;
+
+    @Setup
+    public void setUp() {
+        // Parsing never touches the driver, and no report step is sent
+        helpers = new PerformanceHelpers(null);
+
+        JSONObject text = new JSONObject();
+        text.put("transactionId", "4f3c2b1a-9e8d-4c7b-a6f5-e4d3c2b1a098");
+        text.put("transactionName", "Login_Android");
+        text.put("appName", "com.experitest.ExperiBank");
+        text.put("appVersion", "1.0");
+        text.put("link", "https://cloud.example.com/reporter/transactions/4f3c2b1a-9e8d-4c7b-a6f5-e4d3c2b1a098");
+        endTransactionResponse = new JSONObject().put("text", text.toString()).toString();
+
+        JSONObject transaction = new JSONObject();
+        transaction.put("id", "4f3c2b1a-9e8d-4c7b-a6f5-e4d3c2b1a098");
+        transaction.put("name", "Login_Android");
+        transaction.put("networkProfile", "4G-average");
+        transaction.put("cpuAvg", 23.75);
+        transaction.put("cpuMax", 61.2);
+        transaction.put("memAvg", 212.4);
+        transaction.put("memMax", 248.9);
+        transaction.put("batteryAvg", 3.1);
+        transaction.put("batteryMax", 4.6);
+        transaction.put("duration", 3184);
+        transaction.put("speedIndex", 1422);
+        transaction.put("deviceName", "Samsung Galaxy S23");
+        transaction.put("deviceOs", "Android 14");
+        transactionApiResponse = transaction.toString();
+    }
+
+    @Benchmark
+    public String reportProperty() {
+        return helpers.getPropertyFromPerformanceTransactionReport(endTransactionResponse, "transactionId");
+    }
+
+    // The three lookups done for every transaction of the E2E tests
+    @Benchmark
+    public void reportPropertiesPerTransaction(Blackhole blackhole) {
+        blackhole.consume(helpers.getPropertyFromPerformanceTransactionReport(endTransactionResponse, "transactionId"));
+        blackhole.consume(helpers.getPropertyFromPerformanceTransactionReport(endTransactionResponse, "link"));
+        blackhole.consume(helpers.getPropertyFromPerformanceTransactionReport(endTransactionResponse, "transactionId"));
+    }
+
+    @Benchmark
+    public TransactionMetrics transactionMetrics() {
+        return TransactionMetrics.fromJson("4f3c2b1a-9e8d-4c7b-a6f5-e4d3c2b1a098", transactionApiResponse);
+    }
+
+    // Parsed snapshot plus the numeric values, as read by the budgets and the regression detector
+    @Benchmark
+    public double transactionMetricsValues() {
+        TransactionMetrics metrics = TransactionMetrics.fromJson("4f3c2b1a-9e8d-4c7b-a6f5-e4d3c2b1a098", transactionApiResponse);
+        double sum = 0;
+        for (String metric : NUMERIC_METRICS) {
+            sum += Double.parseDouble(metrics.get(metric));
+        }
+        return sum;
+    }
+}
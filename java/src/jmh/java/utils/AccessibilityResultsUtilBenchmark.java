@@ -0,0 +1,82 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of the JSON and HTML reports of accessibility scan results, from a single screen to a large crawl.
+ *
+ * The results have the shape of a mobile: axeScan response, with ruleCount rule results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccessibilityResultsUtilBenchmark {
+
+    private static final String[] RULES = {"ColorContrast", "TouchSizeWcag", "ActiveViewName", "ImageViewName", "EditTextName"};
+    private static final String[] STATUSES = {"PASS", "FAIL", "INCOMPLETE"};
+    private static final String[] IMPACTS = {"CRITICAL", "SERIOUS", "MODERATE", "MINOR"};
+
+    @Param({"10", "100", "1000", "10000"})
+    public int ruleCount;
+
+    private Map<String, Object> scanResults;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Map<String, Object>> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            Map<String, Object> props = new LinkedHashMap<>();
+            props.put("viewIdResourceName", "com.experitest.ExperiBank:id/view" + i);
+            props.put("className", "android.widget.Button");
+            props.put("contentDescription", i % 3 == 0 ? null : "Button " + i);
+            props.put("boundsInScreen", random.nextInt(1080) + "," + random.nextInt(2400) + ",120,48");
+
+            Map<String, Object> rule = new LinkedHashMap<>();
+            rule.put("ruleId", RULES[i % RULES.length]);
+            rule.put("status", STATUSES[random.nextInt(STATUSES.length)]);
+            rule.put("impact", IMPACTS[random.nextInt(IMPACTS.length)]);
+            rule.put("summary", "Views must have a minimum touch target size of 48dp & a <name> for screen readers");
+            rule.put("props", props);
+            rules.add(rule);
+        }
+
+        Map<String, Object> metaData = new LinkedHashMap<>();
+        metaData.put("screenTitle", "LoginActivity");
+        metaData.put("appIdentifier", "com.experitest.ExperiBank");
+        metaData.put("osVersion", "14");
+
+        scanResults = new LinkedHashMap<>();
+        scanResults.put("axeRuleResults", rules);
+        scanResults.put("axeMetaData", metaData);
+    }
+
+    // Both reports in a single serialization pass, as saveResults writes them
+    @Benchmark
+    public void reports() throws IOException {
+        AccessibilityResultsUtil.writeReports(scanResults, Writer.nullWriter(), Writer.nullWriter(), "Android",
+                "Benchmark scan", "android-accessibility-scan.json.gz");
+    }
+}
@@ -0,0 +1,88 @@
+package utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration lookups and device query validation, which run for every session the examples create.
+ *
+ * The lookups go through system properties, the environment and .env in that order, so each benchmark
+ * reads a key that is resolved at a different level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvironmentConfigBenchmark {
+
+    @Param({
+            "@os='android'",
+            "@os='android' and @category='PHONE' and contains(@model, 'Galaxy') and @version>='12'"
+    })
+    public String deviceQuery;
+
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        System.setProperty("CLOUD_URL", "https://cloud.example.com");
+        System.setProperty("STUB_LATENCY_MS", "50");
+        System.setProperty("ANDROID_DEVICE_QUERY", deviceQuery);
+        // The device query getters print every query they validate; measure the lookup, not the console
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+        System.clearProperty("CLOUD_URL");
+        System.clearProperty("STUB_LATENCY_MS");
+        System.clearProperty("ANDROID_DEVICE_QUERY");
+    }
+
+    // Resolved from a system property, then normalized
+    @Benchmark
+    public String cloudUrl() {
+        return EnvironmentConfig.getCloudUrl();
+    }
+
+    // Resolved from a system property and parsed
+    @Benchmark
+    public int intSetting() {
+        return EnvironmentConfig.getStubLatencyMillis();
+    }
+
+    // Not set anywhere: falls through the environment and .env to the default
+    @Benchmark
+    public int defaultSetting() {
+        return EnvironmentConfig.getSessionPoolMaxIdleSeconds();
+    }
+
+    @Benchmark
+    public String androidDeviceQuery() {
+        return EnvironmentConfig.getAndroidDeviceQuery();
+    }
+
+    @Benchmark
+    public String validateDeviceQuery() {
+        EnvironmentConfig.validateDeviceQuery(deviceQuery, "android");
+        return deviceQuery;
+    }
+}
@@ -0,0 +1,109 @@
+package advancedCommands.accessibilityscan;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import org.openqa.selenium.By;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import utils.AccessibilityBaseline;
+import utils.AccessibilityCrawler;
+import utils.AccessibilityResultsUtil;
+import utils.ApplicationUploadUtil;
+import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
+
+/**
+ * Accessibility crawl of the ExperiBank screens on Android.
+ *
+ * The screens below are spread over ACCESSIBILITY_CRAWL_SESSIONS concurrent sessions, each one on a device
+ * from the device query. The scans are merged into one report, which is indexed and diffed against its
+ * baseline like a single scan, so a violation on an element shared by several screens is reviewed once.
+ */
+public class AndroidAccessibilityCrawlTest {
+
+    private static final String APP_PACKAGE = "com.experitest.ExperiBank";
+
+    // Each screen is reached from a freshly started application
+    private static final List<AccessibilityCrawler.Screen> SCREENS = Arrays.asList(
+            AccessibilityCrawler.screen("Login", driver ->
+                    waitFor(driver, By.id(APP_PACKAGE + ":id/usernameTextField"))),
+            AccessibilityCrawler.screen("Home", AndroidAccessibilityCrawlTest::login),
+            AccessibilityCrawler.screen("Make Payment", AndroidAccessibilityCrawlTest::openMakePayment),
+            AccessibilityCrawler.screen("Country Picker", driver -> {
+                openMakePayment(driver);
+                driver.findElement(By.id(APP_PACKAGE + ":id/countryButton")).click();
+                waitFor(driver, By.xpath("//android.widget.TextView[@text='Switzerland']"));
+            }),
+            AccessibilityCrawler.screen("Payment Confirmation", driver -> {
+                openMakePayment(driver);
+                driver.findElement(By.id(APP_PACKAGE + ":id/phoneTextField")).sendKeys("3479350000");
+                driver.findElement(By.id(APP_PACKAGE + ":id/nameTextField")).sendKeys("Rahee");
+                driver.findElement(By.id(APP_PACKAGE + ":id/amountTextField")).sendKeys("20");
+                driver.findElement(By.id(APP_PACKAGE + ":id/countryButton")).click();
+                waitFor(driver, By.xpath("//android.widget.TextView[@text='Switzerland']"));
+                driver.findElement(By.xpath("//android.widget.TextView[@text='Switzerland']")).click();
+                driver.findElement(By.id(APP_PACKAGE + ":id/sendPaymentButton")).click();
+                waitFor(driver, By.id("android:id/button1"));
+            })
+    );
+
+    @BeforeClass
+    public void setUp() {
+        new ApplicationUploadUtil().uploadUnmodifiedApplication();
+    }
+
+    @Test
+    public void accessibilityCrawl() throws Exception {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        AccessibilityCrawler crawler = new AccessibilityCrawler(
+                () -> InstrumentedDrivers.newAndroidDriver(cloudUrl, options()),
+                APP_PACKAGE,
+                EnvironmentConfig.getAccessibilityCrawlSessions());
+
+        AccessibilityCrawler.CrawlResult result = crawler.crawl(SCREENS);
+
+        if (!result.getScans().isEmpty()) {
+            Object merged = AccessibilityResultsUtil.mergeScreenResults(result.getScans());
+            AccessibilityResultsUtil.saveResults(merged, "Android", "Android_ExperiBank_Accessibility_Crawl");
+            AccessibilityBaseline.check(merged, "Android", "Android_ExperiBank_Accessibility_Crawl");
+        }
+        Assert.assertTrue(result.getFailures().isEmpty(), "Screens that could not be scanned: " + result.getFailures());
+    }
+
+    private static UiAutomator2Options options() {
+        return new UiAutomator2Options()
+                .setApp("cloud:uniqueName=" + ApplicationUploadUtil.SEETEST_UNMODIFIED)
+                .setAppPackage(APP_PACKAGE)
+                .setAppActivity(".LoginActivity")
+                .setAutomationName("AxeUiAutomator2")
+                .amend("digitalai:accessKey", EnvironmentConfig.getAccessKey())
+                .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
+                .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
+                .amend("digitalai:testName", "Run Accessibility Crawl on Android device");
+    }
+
+    private static void login(AppiumDriver driver) {
+        waitFor(driver, By.id(APP_PACKAGE + ":id/usernameTextField"));
+        driver.findElement(By.id(APP_PACKAGE + ":id/usernameTextField")).sendKeys("company");
+        driver.findElement(By.id(APP_PACKAGE + ":id/passwordTextField")).sendKeys("company");
+        driver.findElement(By.id(APP_PACKAGE + ":id/loginButton")).click();
+        waitFor(driver, By.id(APP_PACKAGE + ":id/makePaymentButton"));
+    }
+
+    private static void openMakePayment(AppiumDriver driver) {
+        login(driver);
+        driver.findElement(By.id(APP_PACKAGE + ":id/makePaymentButton")).click();
+        waitFor(driver, By.id(APP_PACKAGE + ":id/phoneTextField"));
+    }
+
+    private static void waitFor(AppiumDriver driver, By locator) {
+        new WebDriverWait(driver, Duration.ofSeconds(10)).until(ExpectedConditions.elementToBeClickable(locator));
+    }
+}
@@ -10,9 +10,11 @@ import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import utils.AccessibilityBaseline;
 import utils.AccessibilityResultsUtil;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 public class AndroidAccessibilityTest {
 
@@ -34,7 +36,8 @@ public class AndroidAccessibilityTest {
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "Run Accessibility Scan test on Android device");
 
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        // Instrumented so the axe scan shows up as an Accessibility Scan event in JFR recordings
+        driver = InstrumentedDrivers.newAndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
     }
 
     @Test
@@ -81,6 +84,9 @@ public class AndroidAccessibilityTest {
             AccessibilityResultsUtil.saveResults(axeSupport, "Android", "Android_ExperiBank_Accessibility_Scan");
             System.out.println("📊 Scan results saved to reports/accessibility/");
 
+            // Only violations that are not in the stored baseline need review (ACCESSIBILITY_BASELINE_MODE=fail gates on them)
+            AccessibilityBaseline.check(axeSupport, "Android", "Android_ExperiBank_Accessibility_Scan");
+
         } catch (Exception e) {
             String errorMessage = String.format(
                 "Accessibility scan failed on Android device. Error: %s. " +
@@ -10,9 +10,11 @@ import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import utils.AccessibilityBaseline;
 import utils.AccessibilityResultsUtil;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 public class IOSAccessibilityTest {
 
@@ -33,7 +35,8 @@ public class IOSAccessibilityTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getIOSDeviceQuery());
 
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        // Instrumented so the axe scan shows up as an Accessibility Scan event in JFR recordings
+        driver = InstrumentedDrivers.newIOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
     }
 
     @Test
@@ -80,6 +83,9 @@ public class IOSAccessibilityTest {
             AccessibilityResultsUtil.saveResults(axeSupport, "iOS", "iOS_ExperiBank_Accessibility_Scan");
             System.out.println("📊 Scan results saved to reports/accessibility/");
 
+            // Only violations that are not in the stored baseline need review (ACCESSIBILITY_BASELINE_MODE=fail gates on them)
+            AccessibilityBaseline.check(axeSupport, "iOS", "iOS_ExperiBank_Accessibility_Scan");
+
         } catch (Exception e) {
             String errorMessage = String.format(
                 "Accessibility scan failed on iOS device. Error: %s. " +
@@ -3,11 +3,11 @@ package advancedCommands.adbPushAndPullFile;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.EnvironmentConfig;
+import utils.SessionPreProvisioner;
 
 
 /**
@@ -26,7 +26,9 @@ public class ADBPushAndPullFileAndroidTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "ADB push and pull file test on Android device");
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPreProvisioner.takeAndroidDriver(options);
+        // Open the session for the next test method while this one runs
+        SessionPreProvisioner.prewarmAndroidDriver(options);
     }
 
 
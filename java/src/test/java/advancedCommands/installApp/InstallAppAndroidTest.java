@@ -9,6 +9,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 /**
  Install the application when given:
@@ -40,7 +41,7 @@ public class InstallAppAndroidTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "Install application test on Android device");
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = InstrumentedDrivers.newAndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
     }
 
     @Test
@@ -9,6 +9,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 /**
  Install the application when given:
@@ -39,7 +40,7 @@ public class InstallAppIOSTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getIOSDeviceQuery())
                 .amend("digitalai:testName", "Install application test on iOS device");
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = InstrumentedDrivers.newIOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
     }
 
     @Test
@@ -0,0 +1,62 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+import utils.DriverCommandListener;
+import utils.InstrumentedDrivers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Timestamps every WebDriver command a driver sends while a Performance Transaction is being captured.
+ *
+ * Attached by PerformanceHelpers when capturing starts and detached right before the transaction ends, so the
+ * spans cover the same window as the cloud-side transaction. Comparing their total with the transaction duration
+ * tells client / network overhead apart from time spent on the device.
+ */
+public class ClientSpanRecorder implements DriverCommandListener {
+
+    private final RemoteWebDriver driver;
+    private final long startNanos;
+    private final List<ClientSpans.Span> spans = new ArrayList<>();
+
+    private ClientSpanRecorder(RemoteWebDriver driver) {
+        this.driver = driver;
+        this.startNanos = System.nanoTime();
+    }
+
+    // Starts recording the driver's commands; returns null if the driver was not created through InstrumentedDrivers
+    public static ClientSpanRecorder attach(RemoteWebDriver driver) {
+        ClientSpanRecorder recorder = new ClientSpanRecorder(driver);
+        return InstrumentedDrivers.addListener(driver, recorder) ? recorder : null;
+    }
+
+    // Stops recording and returns the spans recorded since attach
+    public ClientSpans detach() {
+        InstrumentedDrivers.removeListener(driver, this);
+        long wallNanos = System.nanoTime() - startNanos;
+        synchronized (spans) {
+            return new ClientSpans(new ArrayList<>(spans), wallNanos);
+        }
+    }
+
+    @Override
+    public void afterCommand(Command command, Response response, long durationNanos) {
+        record(command, durationNanos, false);
+    }
+
+    @Override
+    public void onCommandError(Command command, Throwable error, long durationNanos) {
+        record(command, durationNanos, true);
+    }
+
+    private void record(Command command, long durationNanos, boolean failed) {
+        long endNanos = System.nanoTime();
+        ClientSpans.Span span = new ClientSpans.Span(InstrumentedDrivers.describe(command), endNanos - durationNanos - startNanos, durationNanos, failed);
+        synchronized (spans) {
+            spans.add(span);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side spans of one Performance Transaction, as recorded by {@link ClientSpanRecorder}.
+ *
+ * Command time is the time spent waiting for WebDriver round-trips to the cloud; the rest of the wall time is
+ * spent in the test itself, e.g. between the polls of a WebDriverWait.
+ */
+public class ClientSpans {
+
+    private final List<Span> spans;
+    private final long wallNanos;
+    private final long commandNanos;
+    private final Map<String, CommandBreakdown> breakdown = new LinkedHashMap<>();
+
+    ClientSpans(List<Span> spans, long wallNanos) {
+        this.spans = Collections.unmodifiableList(spans);
+        this.wallNanos = wallNanos;
+        long total = 0;
+        for (Span span : spans) {
+            total += span.durationNanos;
+            breakdown.computeIfAbsent(span.command, key -> new CommandBreakdown()).add(span);
+        }
+        this.commandNanos = total;
+    }
+
+    public List<Span> getSpans() {
+        return spans;
+    }
+
+    public int getCommandCount() {
+        return spans.size();
+    }
+
+    // Time between start and end of capturing, as seen by the client
+    public double getWallMillis() {
+        return toMillis(wallNanos);
+    }
+
+    // Time spent in WebDriver commands
+    public double getCommandMillis() {
+        return toMillis(commandNanos);
+    }
+
+    // Time not spent in WebDriver commands (test code, waits between polls)
+    public double getIdleMillis() {
+        return toMillis(Math.max(0, wallNanos - commandNanos));
+    }
+
+    // Count, total and maximum time per command, in order of first use
+    public Map<String, CommandBreakdown> getBreakdown() {
+        return Collections.unmodifiableMap(breakdown);
+    }
+
+    public List<String> toSummaryLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Client-side: %d commands took %.0f ms of %.0f ms (%.0f ms outside commands)",
+                spans.size(), getCommandMillis(), getWallMillis(), getIdleMillis()));
+        for (Map.Entry<String, CommandBreakdown> entry : breakdown.entrySet()) {
+            lines.add("  " + entry.getKey() + ": " + entry.getValue());
+        }
+        return lines;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * One WebDriver command, with its start relative to the start of capturing.
+     */
+    public static class Span {
+        private final String command;
+        private final long startOffsetNanos;
+        private final long durationNanos;
+        private final boolean failed;
+
+        Span(String command, long startOffsetNanos, long durationNanos, boolean failed) {
+            this.command = command;
+            this.startOffsetNanos = startOffsetNanos;
+            this.durationNanos = durationNanos;
+            this.failed = failed;
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public long getStartOffsetNanos() {
+            return startOffsetNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s at +%.0f ms took %.0f ms%s", command, toMillis(startOffsetNanos),
+                    toMillis(durationNanos), failed ? " (failed)" : "");
+        }
+    }
+
+    /**
+     * Count, total and maximum time of one kind of command.
+     */
+    public static class CommandBreakdown {
+        private int count;
+        private int failures;
+        private long totalNanos;
+        private long maxNanos;
+
+        private void add(Span span) {
+            count++;
+            totalNanos += span.durationNanos;
+            maxNanos = Math.max(maxNanos, span.durationNanos);
+            if (span.failed) {
+                failures++;
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        public double getTotalMillis() {
+            return toMillis(totalNanos);
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d x, %.0f ms total, %.0f ms max%s", count, getTotalMillis(), getMaxMillis(),
+                    failures > 0 ? ", " + failures + " failed" : "");
+        }
+    }
+}
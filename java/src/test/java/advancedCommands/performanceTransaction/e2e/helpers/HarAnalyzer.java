@@ -0,0 +1,195 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import utils.ArtifactStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+/**
+ * Computes a {@link HarMetrics} report from a HAR file in a single streaming pass.
+ *
+ * The file is read token by token with the Jackson streaming parser, so memory use does not depend on
+ * the size of the HAR: response bodies and other fields that are not needed are skipped without
+ * being decoded into strings.
+ */
+public class HarAnalyzer {
+
+    public static final int DEFAULT_TOP_N = 10;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private HarAnalyzer() {}
+
+    public static HarMetrics analyze(Path harFile) throws IOException {
+        return analyze(harFile, DEFAULT_TOP_N);
+    }
+
+    // topN is the number of slowest and largest requests kept in the report
+    // HAR files stored gzip-compressed (.har.gz) are decompressed while they are read
+    public static HarMetrics analyze(Path harFile, int topN) throws IOException {
+        try (InputStream in = ArtifactStore.openFile(harFile)) {
+            return analyze(in, topN);
+        }
+    }
+
+    public static HarMetrics analyze(InputStream in, int topN) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return analyze(parser, topN);
+        }
+    }
+
+    public static HarMetrics analyze(JsonParser parser, int topN) throws IOException {
+        HarMetrics metrics = new HarMetrics(topN);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("HAR content is not a JSON object");
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("log".equals(field) && value == JsonToken.START_OBJECT) {
+                readLog(parser, metrics);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return metrics;
+    }
+
+    private static void readLog(JsonParser parser, HarMetrics metrics) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("entries".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    readEntry(parser, metrics);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readEntry(JsonParser parser, HarMetrics metrics) throws IOException {
+        EntryFields entry = new EntryFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("time".equals(field) && value.isNumeric()) {
+                entry.timeMs = parser.getValueAsDouble();
+            } else if ("startedDateTime".equals(field) && value == JsonToken.VALUE_STRING) {
+                entry.startedEpochMillis = parseStartedDateTime(parser.getText());
+            } else if ("request".equals(field) && value == JsonToken.START_OBJECT) {
+                readRequest(parser, entry);
+            } else if ("response".equals(field) && value == JsonToken.START_OBJECT) {
+                readResponse(parser, entry);
+            } else if ("timings".equals(field) && value == JsonToken.START_OBJECT) {
+                readTimings(parser, entry);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        long bytes = entry.bodySize >= 0 ? entry.bodySize : Math.max(entry.contentSize, 0);
+        metrics.addEntry(new HarMetrics.Entry(entry.url, hostOf(entry.url), entry.mimeType, entry.status, entry.timeMs, bytes),
+                entry.phaseTimings, entry.startedEpochMillis);
+    }
+
+    private static void readRequest(JsonParser parser, EntryFields entry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("url".equals(field) && value == JsonToken.VALUE_STRING) {
+                entry.url = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readResponse(JsonParser parser, EntryFields entry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("status".equals(field) && value.isNumeric()) {
+                entry.status = parser.getValueAsInt();
+            } else if ("bodySize".equals(field) && value.isNumeric()) {
+                entry.bodySize = parser.getValueAsLong();
+            } else if ("content".equals(field) && value == JsonToken.START_OBJECT) {
+                readContent(parser, entry);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    // "text" holds the response body and is skipped without being decoded
+    private static void readContent(JsonParser parser, EntryFields entry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("size".equals(field) && value.isNumeric()) {
+                entry.contentSize = parser.getValueAsLong();
+            } else if ("mimeType".equals(field) && value == JsonToken.VALUE_STRING) {
+                entry.mimeType = normalizeMimeType(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void readTimings(JsonParser parser, EntryFields entry) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            int phase = Arrays.asList(HarMetrics.TIMING_PHASES).indexOf(field);
+            if (phase >= 0 && value.isNumeric()) {
+                entry.phaseTimings[phase] = parser.getValueAsDouble();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static long parseStartedDateTime(String startedDateTime) {
+        try {
+            return OffsetDateTime.parse(startedDateTime).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host : "unknown";
+        } catch (IllegalArgumentException e) {
+            return "unknown";
+        }
+    }
+
+    private static String normalizeMimeType(String mimeType) {
+        int parameters = mimeType.indexOf(';');
+        String type = (parameters >= 0 ? mimeType.substring(0, parameters) : mimeType).trim().toLowerCase();
+        return type.isEmpty() ? "unknown" : type;
+    }
+
+    private static class EntryFields {
+        private String url = "";
+        private String mimeType = "unknown";
+        private int status;
+        private double timeMs;
+        private long bodySize = -1;
+        private long contentSize = -1;
+        private long startedEpochMillis = -1;
+        private final double[] phaseTimings = new double[HarMetrics.TIMING_PHASES.length];
+    }
+}
@@ -0,0 +1,111 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+/**
+ * Unit tests of the streaming HAR parser of {@link HarAnalyzer}.
+ */
+public class HarAnalyzerTest {
+
+    private static final String HAR = "{"
+            + "\"log\": {"
+            + "  \"version\": \"1.2\","
+            + "  \"creator\": {\"name\": \"proxy\", \"version\": \"1.0\"},"
+            + "  \"pages\": [{\"id\": \"page_1\", \"title\": \"ignored\"}],"
+            + "  \"entries\": ["
+            + "    {\"startedDateTime\": \"2024-05-01T10:00:00.000Z\", \"time\": 120.5,"
+            + "     \"request\": {\"method\": \"GET\", \"url\": \"https://api.example.com/login?user=1\", \"headers\": [{\"name\": \"a\", \"value\": \"b\"}]},"
+            + "     \"response\": {\"status\": 200, \"bodySize\": 2048, \"content\": {\"size\": 4096, \"mimeType\": \"application/JSON; charset=utf-8\", \"text\": \"{\\\"token\\\": [1, 2, {\\\"x\\\": 3}]}\"}},"
+            + "     \"timings\": {\"blocked\": -1, \"dns\": 5, \"connect\": 20, \"ssl\": 15, \"send\": 1, \"wait\": 70, \"receive\": 9.5, \"_custom\": 3}},"
+            + "    {\"startedDateTime\": \"2024-05-01T12:00:00.050+02:00\", \"time\": 30,"
+            + "     \"request\": {\"url\": \"https://cdn.example.com/logo.png\"},"
+            + "     \"response\": {\"status\": 304, \"bodySize\": -1, \"content\": {\"size\": 512, \"mimeType\": \"image/png\"}},"
+            + "     \"timings\": {\"send\": 1, \"wait\": 25, \"receive\": 4}},"
+            + "    {\"startedDateTime\": \"not a date\", \"time\": 7,"
+            + "     \"request\": {\"url\": \"not a url\"},"
+            + "     \"response\": {\"status\": 0, \"content\": {\"mimeType\": \"\"}}}"
+            + "  ]"
+            + "},"
+            + "\"_extension\": {\"entries\": [{\"time\": 99999}]}"
+            + "}";
+
+    @Test
+    public void readsTheFieldsOfEachEntry() throws IOException {
+        HarMetrics metrics = analyze(HAR);
+
+        assertEquals(metrics.getEntryCount(), 3);
+        assertEquals(metrics.getTotalTimeMs(), 157.5, 1e-9);
+        // bodySize, else content size, else 0
+        assertEquals(metrics.getTotalBytes(), 2048L + 512L);
+
+        HarMetrics.Entry slowest = metrics.getSlowestEntries().get(0);
+        assertEquals(slowest.getUrl(), "https://api.example.com/login?user=1");
+        assertEquals(slowest.getHost(), "api.example.com");
+        assertEquals(slowest.getMimeType(), "application/json");
+        assertEquals(slowest.getStatus(), 200);
+
+        assertEquals(metrics.getHosts().get("unknown").getCount(), 1);
+        assertEquals(metrics.getMimeTypes().get("unknown").getCount(), 1);
+        assertEquals(metrics.getPhaseTotalsMs().get("wait"), 95.0, 0.0);
+        assertEquals(metrics.getPhaseTotalsMs().get("receive"), 13.5, 0.0);
+        assertEquals(metrics.getPhaseTotalsMs().get("blocked"), 0.0, 0.0);
+    }
+
+    @Test
+    public void startTimesWithOffsetsOverlap() throws IOException {
+        // 12:00:00.050+02:00 is 50 ms after the first request started, while it is still in flight
+        HarMetrics metrics = analyze(HAR);
+
+        assertEquals(metrics.getPeakConcurrency(), 2);
+        assertEquals(metrics.getConcurrencyTimeline(1000).get(0L), Integer.valueOf(2));
+    }
+
+    @Test
+    public void harWithoutEntries() throws IOException {
+        assertEquals(analyze("{\"log\": {\"version\": \"1.2\"}}").getEntryCount(), 0);
+        assertEquals(analyze("{}").getEntryCount(), 0);
+    }
+
+    @Test
+    public void contentThatIsNotAnObjectIsRejected() {
+        assertThrows(IOException.class, () -> analyze("[]"));
+    }
+
+    @Test
+    public void readsGzipCompressedFiles() throws IOException {
+        Path directory = Files.createTempDirectory("har-analyzer-test");
+        Path plain = directory.resolve("transaction.har");
+        Path compressed = directory.resolve("transaction.har.gz");
+        try {
+            Files.write(plain, HAR.getBytes(StandardCharsets.UTF_8));
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+                out.write(HAR.getBytes(StandardCharsets.UTF_8));
+            }
+
+            assertEquals(HarAnalyzer.analyze(plain).getEntryCount(), 3);
+            assertEquals(HarAnalyzer.analyze(compressed).getTotalBytes(), 2048L + 512L);
+        } finally {
+            Files.deleteIfExists(plain);
+            Files.deleteIfExists(compressed);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static HarMetrics analyze(String har) throws IOException {
+        try (InputStream in = new ByteArrayInputStream(har.getBytes(StandardCharsets.UTF_8))) {
+            return HarAnalyzer.analyze(in, HarAnalyzer.DEFAULT_TOP_N);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Metrics computed by {@link HarAnalyzer} from the entries of a HAR file.
+ *
+ * Besides the call count and total time, the report holds latency percentiles, per-host and per-MIME-type
+ * breakdowns, totals for each timing phase (blocked, dns, connect, ssl, send, wait, receive), request
+ * concurrency over time and the slowest / largest requests. Only a few numbers are kept per entry, so memory
+ * grows with the number of requests, not with the size of the HAR.
+ */
+public class HarMetrics {
+
+    public static final String[] TIMING_PHASES = {"blocked", "dns", "connect", "ssl", "send", "wait", "receive"};
+
+    private static final Comparator<Entry> BY_TIME = Comparator.comparingDouble(Entry::getTimeMs);
+    private static final Comparator<Entry> BY_BYTES = Comparator.comparingLong(Entry::getBytes);
+
+    private final int topN;
+    private int entryCount;
+    private double totalTimeMs;
+    private long totalBytes;
+    private double[] times = new double[64];
+    private long[] startMillis = new long[64];
+    private long[] endMillis = new long[64];
+    private int timedEntries;
+    private double[] sortedTimes;
+    private final Map<String, Breakdown> hosts = new LinkedHashMap<>();
+    private final Map<String, Breakdown> mimeTypes = new LinkedHashMap<>();
+    private final Map<String, Double> phaseTotalsMs = new LinkedHashMap<>();
+    private final PriorityQueue<Entry> slowest = new PriorityQueue<>(BY_TIME);
+    private final PriorityQueue<Entry> largest = new PriorityQueue<>(BY_BYTES);
+
+    HarMetrics(int topN) {
+        this.topN = topN;
+        for (String phase : TIMING_PHASES) {
+            phaseTotalsMs.put(phase, 0.0);
+        }
+    }
+
+    void addEntry(Entry entry, double[] phaseTimings, long startedEpochMillis) {
+        if (entryCount == times.length) {
+            times = Arrays.copyOf(times, entryCount * 2);
+        }
+        times[entryCount] = entry.timeMs;
+        entryCount++;
+        totalTimeMs += entry.timeMs;
+        totalBytes += entry.bytes;
+        sortedTimes = null;
+
+        hosts.computeIfAbsent(entry.host, key -> new Breakdown()).add(entry);
+        mimeTypes.computeIfAbsent(entry.mimeType, key -> new Breakdown()).add(entry);
+
+        // HAR uses -1 for phases that do not apply to a request
+        for (int i = 0; i < TIMING_PHASES.length; i++) {
+            if (phaseTimings[i] > 0) {
+                phaseTotalsMs.merge(TIMING_PHASES[i], phaseTimings[i], Double::sum);
+            }
+        }
+
+        if (startedEpochMillis >= 0) {
+            if (timedEntries == startMillis.length) {
+                startMillis = Arrays.copyOf(startMillis, timedEntries * 2);
+                endMillis = Arrays.copyOf(endMillis, timedEntries * 2);
+            }
+            startMillis[timedEntries] = startedEpochMillis;
+            endMillis[timedEntries] = startedEpochMillis + (long) Math.ceil(entry.timeMs);
+            timedEntries++;
+        }
+
+        keepTop(slowest, entry, BY_TIME);
+        keepTop(largest, entry, BY_BYTES);
+    }
+
+    private void keepTop(PriorityQueue<Entry> queue, Entry entry, Comparator<Entry> order) {
+        if (queue.size() < topN) {
+            queue.add(entry);
+        } else if (topN > 0 && order.compare(entry, queue.peek()) > 0) {
+            queue.poll();
+            queue.add(entry);
+        }
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public double getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    public double getTotalTimeSeconds() {
+        return totalTimeMs / 1000;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // Nearest-rank percentile of the entry times, e.g. percentile(90) for p90
+    public double percentile(double percentile) {
+        if (entryCount == 0) {
+            return 0;
+        }
+        if (sortedTimes == null) {
+            sortedTimes = Arrays.copyOf(times, entryCount);
+            Arrays.sort(sortedTimes);
+        }
+        int rank = (int) Math.ceil(percentile / 100 * entryCount);
+        return sortedTimes[Math.max(0, Math.min(entryCount - 1, rank - 1))];
+    }
+
+    public double getP50Ms() {
+        return percentile(50);
+    }
+
+    public double getP90Ms() {
+        return percentile(90);
+    }
+
+    public double getP99Ms() {
+        return percentile(99);
+    }
+
+    public Map<String, Breakdown> getHosts() {
+        return Collections.unmodifiableMap(hosts);
+    }
+
+    public Map<String, Breakdown> getMimeTypes() {
+        return Collections.unmodifiableMap(mimeTypes);
+    }
+
+    public Map<String, Double> getPhaseTotalsMs() {
+        return Collections.unmodifiableMap(phaseTotalsMs);
+    }
+
+    // Maximum number of requests in flight at the same time
+    public int getPeakConcurrency() {
+        int peak = 0;
+        for (int concurrency : getConcurrencyTimeline(1).values()) {
+            peak = Math.max(peak, concurrency);
+        }
+        return peak;
+    }
+
+    // Highest number of requests in flight at a request start, per bucket, keyed by bucket offset (ms) from the
+    // first request. Sampling at start events gives the exact peak, but a bucket in which no request starts has
+    // no entry even if requests were in flight during it.
+    public Map<Long, Integer> getConcurrencyTimeline(long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("bucketMillis must be positive, got " + bucketMillis);
+        }
+        Map<Long, Integer> timeline = new TreeMap<>();
+        if (timedEntries == 0) {
+            return timeline;
+        }
+
+        long[] starts = Arrays.copyOf(startMillis, timedEntries);
+        long[] ends = Arrays.copyOf(endMillis, timedEntries);
+        Arrays.sort(starts);
+        Arrays.sort(ends);
+
+        long origin = starts[0];
+        int inFlight = 0;
+        int s = 0;
+        int e = 0;
+        // Sweep over start/end events; an end at the same instant as a start is processed first
+        while (s < timedEntries) {
+            if (e < s && ends[e] <= starts[s]) {
+                inFlight--;
+                e++;
+            } else {
+                inFlight++;
+                long bucket = (starts[s] - origin) / bucketMillis * bucketMillis;
+                timeline.merge(bucket, inFlight, Math::max);
+                s++;
+            }
+        }
+        return timeline;
+    }
+
+    public List<Entry> getSlowestEntries() {
+        return sortedDescending(slowest, BY_TIME);
+    }
+
+    public List<Entry> getLargestEntries() {
+        return sortedDescending(largest, BY_BYTES);
+    }
+
+    private static List<Entry> sortedDescending(PriorityQueue<Entry> queue, Comparator<Entry> order) {
+        List<Entry> entries = new ArrayList<>(queue);
+        entries.sort(order.reversed());
+        return entries;
+    }
+
+    // Human-readable lines suitable for report steps
+    public List<String> toSummaryLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Number of Network Calls made: " + entryCount);
+        lines.add("Total time taken for all Network Calls in Seconds: " + getTotalTimeSeconds());
+        lines.add(String.format("Latency p50/p90/p99 in ms: %.0f / %.0f / %.0f", getP50Ms(), getP90Ms(), getP99Ms()));
+        lines.add("Total response bytes: " + totalBytes);
+        lines.add("Peak concurrent requests: " + getPeakConcurrency());
+        lines.add("Timing phase totals in ms: " + phaseTotalsMs);
+        lines.add("Requests per host: " + hosts);
+        lines.add("Requests per MIME type: " + mimeTypes);
+        if (!slowest.isEmpty()) {
+            lines.add("Slowest request: " + getSlowestEntries().get(0));
+        }
+        if (!largest.isEmpty()) {
+            lines.add("Largest request: " + getLargestEntries().get(0));
+        }
+        return lines;
+    }
+
+    /**
+     * Request count, bytes and time for one host or MIME type.
+     */
+    public static class Breakdown {
+        private int count;
+        private long bytes;
+        private double timeMs;
+
+        private void add(Entry entry) {
+            count++;
+            bytes += entry.bytes;
+            timeMs += entry.timeMs;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getTimeMs() {
+            return timeMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("{count=%d, bytes=%d, timeMs=%.0f}", count, bytes, timeMs);
+        }
+    }
+
+    /**
+     * The fields of a single HAR entry kept for the slowest / largest request lists.
+     */
+    public static class Entry {
+        private final String url;
+        private final String host;
+        private final String mimeType;
+        private final int status;
+        private final double timeMs;
+        private final long bytes;
+
+        Entry(String url, String host, String mimeType, int status, double timeMs, long bytes) {
+            this.url = url;
+            this.host = host;
+            this.mimeType = mimeType;
+            this.status = status;
+            this.timeMs = timeMs;
+            this.bytes = bytes;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public double getTimeMs() {
+            return timeMs;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (status %d, %s, %.0f ms, %d bytes)", url, status, mimeType, timeMs, bytes);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the percentiles, concurrency sweep and top-N lists of {@link HarMetrics}.
+ */
+public class HarMetricsTest {
+
+    private static final double[] NO_TIMINGS = {-1, -1, -1, -1, -1, -1, -1};
+    private static final long BASE_MILLIS = 1_700_000_000_000L;
+
+    @Test
+    public void nearestRankPercentiles() {
+        HarMetrics metrics = new HarMetrics(10);
+        // Added out of order: 100, 99, ..., 1 ms
+        for (int time = 100; time >= 1; time--) {
+            add(metrics, "https://api.example.com/" + time, time, 0, -1);
+        }
+
+        assertEquals(metrics.getP50Ms(), 50.0, 0.0);
+        assertEquals(metrics.getP90Ms(), 90.0, 0.0);
+        assertEquals(metrics.getP99Ms(), 99.0, 0.0);
+        assertEquals(metrics.percentile(100), 100.0, 0.0);
+        assertEquals(metrics.percentile(0), 1.0, 0.0);
+    }
+
+    @Test
+    public void percentilesFollowEntriesAddedLater() {
+        HarMetrics metrics = new HarMetrics(10);
+        add(metrics, "https://api.example.com/a", 10, 0, -1);
+        add(metrics, "https://api.example.com/b", 20, 0, -1);
+        assertEquals(metrics.getP99Ms(), 20.0, 0.0);
+
+        add(metrics, "https://api.example.com/c", 500, 0, -1);
+        assertEquals(metrics.getP99Ms(), 500.0, 0.0);
+        assertEquals(metrics.getP50Ms(), 20.0, 0.0);
+    }
+
+    @Test
+    public void emptyMetrics() {
+        HarMetrics metrics = new HarMetrics(10);
+
+        assertEquals(metrics.getP50Ms(), 0.0, 0.0);
+        assertEquals(metrics.getPeakConcurrency(), 0);
+        assertTrue(metrics.getConcurrencyTimeline(100).isEmpty());
+        assertTrue(metrics.getSlowestEntries().isEmpty());
+    }
+
+    @Test
+    public void concurrencySweep() {
+        HarMetrics metrics = new HarMetrics(10);
+        add(metrics, "https://api.example.com/a", 100, 0, 0);
+        add(metrics, "https://api.example.com/b", 100, 0, 50);
+        // Starts the instant a ends, so a is no longer in flight
+        add(metrics, "https://api.example.com/c", 10, 0, 100);
+        add(metrics, "https://api.example.com/d", 10, 0, 200);
+        // No start time: counted, but not part of the concurrency
+        add(metrics, "https://api.example.com/e", 10, 0, -1);
+
+        assertEquals(metrics.getEntryCount(), 5);
+        assertEquals(metrics.getPeakConcurrency(), 2);
+
+        Map<Long, Integer> expected = new LinkedHashMap<>();
+        expected.put(0L, 2);
+        expected.put(100L, 2);
+        expected.put(200L, 1);
+        assertEquals(metrics.getConcurrencyTimeline(100), expected);
+    }
+
+    @Test
+    public void peakOfOverlappingRequests() {
+        HarMetrics metrics = new HarMetrics(10);
+        // Added out of start order
+        add(metrics, "https://api.example.com/a", 1000, 0, 300);
+        add(metrics, "https://api.example.com/b", 1000, 0, 0);
+        add(metrics, "https://api.example.com/c", 10, 0, 1500);
+        add(metrics, "https://api.example.com/d", 1000, 0, 200);
+
+        assertEquals(metrics.getPeakConcurrency(), 3);
+    }
+
+    @Test
+    public void concurrencyBucketMustBePositive() {
+        HarMetrics metrics = new HarMetrics(10);
+        add(metrics, "https://api.example.com/a", 100, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> metrics.getConcurrencyTimeline(0));
+        assertThrows(IllegalArgumentException.class, () -> metrics.getConcurrencyTimeline(-100));
+    }
+
+    @Test
+    public void slowestAndLargestKeepTopN() {
+        HarMetrics metrics = new HarMetrics(2);
+        add(metrics, "https://api.example.com/a", 30, 100, -1);
+        add(metrics, "https://api.example.com/b", 10, 900, -1);
+        add(metrics, "https://api.example.com/c", 50, 300, -1);
+        add(metrics, "https://api.example.com/d", 20, 500, -1);
+
+        assertEquals(urls(metrics.getSlowestEntries()), Arrays.asList("https://api.example.com/c", "https://api.example.com/a"));
+        assertEquals(urls(metrics.getLargestEntries()), Arrays.asList("https://api.example.com/b", "https://api.example.com/d"));
+        assertEquals(metrics.getTotalBytes(), 1800L);
+        assertEquals(metrics.getTotalTimeMs(), 110.0, 0.0);
+    }
+
+    @Test
+    public void breakdownsAndPhaseTotals() {
+        HarMetrics metrics = new HarMetrics(10);
+        metrics.addEntry(new HarMetrics.Entry("https://api.example.com/a", "api.example.com", "application/json", 200, 40, 100),
+                new double[]{-1, 5, 10, -1, 1, 20, 4}, -1);
+        metrics.addEntry(new HarMetrics.Entry("https://cdn.example.com/b", "cdn.example.com", "image/png", 200, 60, 700),
+                new double[]{2, -1, -1, -1, 1, 50, 7}, -1);
+        metrics.addEntry(new HarMetrics.Entry("https://api.example.com/c", "api.example.com", "application/json", 500, 10, 50),
+                NO_TIMINGS, -1);
+
+        HarMetrics.Breakdown api = metrics.getHosts().get("api.example.com");
+        assertEquals(api.getCount(), 2);
+        assertEquals(api.getBytes(), 150L);
+        assertEquals(api.getTimeMs(), 50.0, 0.0);
+        assertEquals(metrics.getMimeTypes().get("image/png").getCount(), 1);
+
+        // -1 marks a phase that does not apply and is not added
+        Map<String, Double> phases = metrics.getPhaseTotalsMs();
+        assertEquals(phases.get("blocked"), 2.0, 0.0);
+        assertEquals(phases.get("dns"), 5.0, 0.0);
+        assertEquals(phases.get("ssl"), 0.0, 0.0);
+        assertEquals(phases.get("wait"), 70.0, 0.0);
+    }
+
+    private static void add(HarMetrics metrics, String url, double timeMs, long bytes, long startOffsetMillis) {
+        metrics.addEntry(new HarMetrics.Entry(url, "api.example.com", "application/json", 200, timeMs, bytes),
+                NO_TIMINGS, startOffsetMillis < 0 ? -1 : BASE_MILLIS + startOffsetMillis);
+    }
+
+    private static List<String> urls(List<HarMetrics.Entry> entries) {
+        return entries.stream().map(HarMetrics.Entry::getUrl).collect(Collectors.toList());
+    }
+}
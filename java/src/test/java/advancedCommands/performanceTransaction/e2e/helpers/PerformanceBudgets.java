@@ -0,0 +1,162 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import utils.EnvironmentConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Performance budgets loaded once from perf-transaction/performance_budgets.json (or PERF_BUDGET_FILE).
+ *
+ * Each entry limits the metrics of a transaction name and nvProfile, either of which may be "*". A field
+ * max&lt;Metric&gt; limits the metric of that name (maxSpeedIndex limits speedIndex, maxNetworkCalls limits the
+ * number of HAR entries). All matching entries are combined, more specific entries overriding less specific ones.
+ */
+public class PerformanceBudgets {
+
+    public static final String NETWORK_CALLS = "networkCalls";
+
+    private static final String DEFAULT_RESOURCE = "perf-transaction/performance_budgets.json";
+    private static final String WILDCARD = "*";
+
+    private final List<Entry> entries;
+
+    private PerformanceBudgets(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public static PerformanceBudgets get() {
+        return Holder.INSTANCE;
+    }
+
+    // Combined limits for the transaction, keyed by metric name; empty if no budget applies
+    public Map<String, Double> limitsFor(String transactionName, String nvProfile) {
+        Map<String, Double> limits = new LinkedHashMap<>();
+        // Least specific first so more specific entries overwrite their limits
+        for (int specificity = 0; specificity <= 3; specificity++) {
+            for (Entry entry : entries) {
+                if (entry.specificity() == specificity && entry.matches(transactionName, nvProfile)) {
+                    limits.putAll(entry.limits);
+                }
+            }
+        }
+        return limits;
+    }
+
+    // Violations of the limits by the given actual values; metrics without a value (NaN) are not checked
+    public static List<Violation> evaluate(Map<String, Double> limits, Map<String, Double> actuals) {
+        List<Violation> violations = new ArrayList<>();
+        for (Map.Entry<String, Double> limit : limits.entrySet()) {
+            Double actual = actuals.get(limit.getKey());
+            if (actual != null && !actual.isNaN() && actual > limit.getValue()) {
+                violations.add(new Violation(limit.getKey(), actual, limit.getValue()));
+            }
+        }
+        return violations;
+    }
+
+    private static PerformanceBudgets load() {
+        String budgetFile = EnvironmentConfig.getPerformanceBudgetFile();
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (InputStream in = budgetFile.isEmpty()
+                ? PerformanceBudgets.class.getClassLoader().getResourceAsStream(DEFAULT_RESOURCE)
+                : Files.newInputStream(Paths.get(budgetFile))) {
+            if (in == null) {
+                System.out.println("PerformanceBudgets - No budget file found, budgets are not enforced");
+                return new PerformanceBudgets(Collections.emptyList());
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (JsonNode node : objectMapper.readTree(in).path("budgets")) {
+                entries.add(Entry.fromJson(node));
+            }
+            System.out.println("PerformanceBudgets - Loaded " + entries.size() + " budgets from "
+                    + (budgetFile.isEmpty() ? DEFAULT_RESOURCE : budgetFile));
+            return new PerformanceBudgets(entries);
+        } catch (IOException e) {
+            System.err.println("PerformanceBudgets - Could not load budgets, budgets are not enforced: " + e.getMessage());
+            return new PerformanceBudgets(Collections.emptyList());
+        }
+    }
+
+    private static class Holder {
+        private static final PerformanceBudgets INSTANCE = load();
+    }
+
+    private static class Entry {
+        private final String transaction;
+        private final String nvProfile;
+        private final Map<String, Double> limits;
+
+        private Entry(String transaction, String nvProfile, Map<String, Double> limits) {
+            this.transaction = transaction;
+            this.nvProfile = nvProfile;
+            this.limits = limits;
+        }
+
+        private static Entry fromJson(JsonNode node) {
+            Map<String, Double> limits = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String name = field.getKey();
+                if (name.length() > 3 && name.startsWith("max") && field.getValue().isNumber()) {
+                    // maxSpeedIndex -> speedIndex
+                    limits.put(Character.toLowerCase(name.charAt(3)) + name.substring(4), field.getValue().asDouble());
+                }
+            }
+            return new Entry(node.path("transaction").asText(WILDCARD), node.path("nvProfile").asText(WILDCARD), limits);
+        }
+
+        private boolean matches(String transactionName, String profile) {
+            return (WILDCARD.equals(transaction) || transaction.equals(transactionName))
+                    && (WILDCARD.equals(nvProfile) || nvProfile.equalsIgnoreCase(profile));
+        }
+
+        // 0 = any transaction and profile ... 3 = exact transaction and profile
+        private int specificity() {
+            return (WILDCARD.equals(transaction) ? 0 : 2) + (WILDCARD.equals(nvProfile) ? 0 : 1);
+        }
+    }
+
+    /**
+     * A metric that exceeded its budget.
+     */
+    public static class Violation {
+        private final String metric;
+        private final double actual;
+        private final double limit;
+
+        Violation(String metric, double actual, double limit) {
+            this.metric = metric;
+            this.actual = actual;
+            this.limit = limit;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public double getActual() {
+            return actual;
+        }
+
+        public double getLimit() {
+            return limit;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.1f exceeds budget %.1f", metric, actual, limit);
+        }
+    }
+}
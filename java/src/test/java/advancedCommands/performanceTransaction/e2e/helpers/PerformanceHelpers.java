@@ -1,35 +1,63 @@
 package advancedCommands.performanceTransaction.e2e.helpers;
 
 import io.appium.java_client.AppiumDriver;
-import kong.unirest.HttpResponse;
-import kong.unirest.Unirest;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.json.JSONArray;
 import org.json.JSONObject;
+import org.openqa.selenium.Capabilities;
+import utils.ArtifactStore;
 import utils.EnvironmentConfig;
+import utils.FlightRecorderEvents;
+import utils.RunnerMetrics;
 
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 public class PerformanceHelpers {
 
+    // Metrics that are only filled in once the reporter has finished aggregating a transaction
+    private static final String[] DEFAULT_READY_PROPERTIES = {"duration", "cpuAvg", "memAvg"};
+    private static final long READY_POLL_INITIAL_DELAY_MS = 250;
+    private static final long READY_POLL_MAX_DELAY_MS = 4000;
+
+    // Context of every transaction ended in this JVM, keyed by transactionId
+    private static final Map<String, TransactionContext> transactionContexts = new ConcurrentHashMap<>();
+
     protected AppiumDriver driver;
+    private String captureNvProfile = "";
+    private String captureLevel = "";
+    private ClientSpanRecorder spanRecorder;
+    private FlightRecorderEvents.PerformanceTransaction transactionEvent;
+    // Report steps and properties are sent in batches unless REPORT_BUFFERING_ENABLED=false
+    private final ReportingChannel reporting;
 
     public PerformanceHelpers(AppiumDriver driver) {
         this.driver = driver;
+        this.reporting = new ReportingChannel(driver, EnvironmentConfig.isReportBufferingEnabled());
     }
 
     public void startCapturePerformanceMetrics(String nvProfile, String captureLevel, String applicationName) {
+        // Remembered so the transaction ended next can be stored in the right metrics series
+        this.captureNvProfile = nvProfile;
+        this.captureLevel = captureLevel;
+        transactionEvent = new FlightRecorderEvents.PerformanceTransaction();
+        transactionEvent.begin();
         try {
             if (captureLevel.equalsIgnoreCase("Device")) {
                 driver.executeScript("seetest:client.startPerformanceTransaction", nvProfile);
@@ -40,11 +68,76 @@ public class PerformanceHelpers {
             e.printStackTrace();
             System.out.println("Could not start Capturing. Accepted Values: [Device, Application]");
         }
+
+        // Time every driver command until the transaction ends (drivers created through InstrumentedDrivers only)
+        spanRecorder = ClientSpanRecorder.attach(driver);
     }
 
     public String endCapturePerformanceMetrics(String transactionName) {
+        ClientSpans clientSpans = spanRecorder != null ? spanRecorder.detach() : null;
+        spanRecorder = null;
+
         Object transaction = driver.executeScript("seetest:client.endPerformanceTransaction", transactionName);
-        return transaction.toString();
+        String response = transaction.toString();
+        TransactionContext context = registerTransactionContext(transactionName, response);
+        commitTransactionEvent(transactionName, context);
+        RunnerMetrics.TRANSACTIONS.inc(transactionName);
+
+        if (clientSpans != null) {
+            if (context != null) {
+                context.setClientSpans(clientSpans);
+            }
+            List<String> summary = clientSpans.toSummaryLines();
+            System.out.println(transactionName + " - " + String.join(System.lineSeparator(), summary));
+            addReportStep(transactionName + " - " + summary.get(0));
+        }
+        return response;
+    }
+
+    private void commitTransactionEvent(String transactionName, TransactionContext context) {
+        if (transactionEvent == null) {
+            return;
+        }
+        transactionEvent.transactionName = transactionName;
+        transactionEvent.transactionId = context != null ? context.getTransactionId() : null;
+        transactionEvent.nvProfile = captureNvProfile;
+        transactionEvent.captureLevel = captureLevel;
+        transactionEvent.commit();
+        transactionEvent = null;
+    }
+
+    // Context of a transaction ended through this class, or null if unknown
+    public TransactionContext getTransactionContext(String transactionId) {
+        return transactionContexts.get(transactionId);
+    }
+
+    private TransactionContext registerTransactionContext(String transactionName, String response) {
+        try {
+            String transactionId = getPropertyFromPerformanceTransactionReport(response, "transactionId");
+            TransactionContext context = new TransactionContext(transactionId, transactionName,
+                    getCapability("platformName"), captureNvProfile, captureLevel, getDeviceModel());
+            transactionContexts.put(transactionId, context);
+            return context;
+        } catch (Exception e) {
+            System.out.println("Could not read transactionId from Performance Transaction response: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private String getDeviceModel() {
+        for (String name : new String[]{"deviceModel", "appium:deviceModel", "digitalai:deviceModel", "deviceName"}) {
+            String value = getCapability(name);
+            if (!value.isEmpty()) {
+                return value;
+            }
+        }
+        return "unknown";
+    }
+
+    private String getCapability(String name) {
+        Capabilities capabilities = driver.getCapabilities();
+        Object value = capabilities != null ? capabilities.getCapability(name) : null;
+        return value != null ? value.toString() : "";
     }
 
     // Properties that can be fetched:
@@ -59,70 +152,297 @@ public class PerformanceHelpers {
 
     // Properties that can be fetched:
     // networkProfile / cpuAvg / cpuMax / memAvg / memMax / batteryAvg / batteryMax / duration / speedIndex
+    // When several properties are needed, use fetchTransaction() to avoid one API call per property
     public String getPropertyFromPerformanceTransactionAPI(String transactionId, String property) {
+        return fetchTransaction(transactionId).get(property);
+    }
+
+    // Fetches the Performance Transaction once and parses it into an immutable TransactionMetrics snapshot
+    public TransactionMetrics fetchTransaction(String transactionId) {
         try {
-            String apiUrl = getApiBaseUrl() + "/reporter/api/transactions/" + transactionId;
-            HttpResponse<String> response = Unirest.get(apiUrl)
-                    .header("Authorization", "Bearer " + EnvironmentConfig.getAccessKey())
-                    .asString();
-
-            String responseBody = response.getBody();
-            JSONObject jsonObject = new JSONObject(responseBody);
-
-            if (jsonObject.get(property) instanceof String) {
-                property = jsonObject.getString(property);
-            } else {
-                property = jsonObject.get(property).toString();
-            }
-            return property;
+            return requestTransaction(transactionId);
         } catch (Exception e) {
             e.printStackTrace();
-            System.out.println("Failed to fetch property from Performance Transaction API: " + property);
-            return "";
+            System.out.println("Failed to fetch Performance Transaction from API: " + transactionId);
+            return TransactionMetrics.empty(transactionId);
         }
     }
 
-    // This method helps to extract metrics from the HAR file, which can help us understand various metrics
-    // such as "How many network calls were made during the Transaction".
-    // This method can be expanded further with parameterization to retrieve other metrics
-    public ArrayList<String> extractHARFileMetrics(String transactionId, String fileName) throws IOException, URISyntaxException {
-        // Getting .json file from local directory
-        File jsonFile = downloadHARFileFromPerformanceTransaction(transactionId, fileName + "_" + getCurrentDateAndTime());
+    // Polls the Performance Transaction API until the reporter has aggregated the metrics, instead of sleeping
+    // a fixed time after endCapturePerformanceMetrics. Returns the last snapshot seen if the deadline passes.
+    public TransactionMetrics fetchTransactionWhenReady(String transactionId, String... requiredProperties) {
+        return fetchTransactionWhenReady(transactionId,
+                Duration.ofSeconds(EnvironmentConfig.getPerformanceTransactionReadyTimeoutSeconds()), requiredProperties);
+    }
 
-        ArrayList<String> metrics = new ArrayList<>();
-        int numberOfNetworkCalls = 0;
-        double totalTimeTakenForNetworkCallsInSeconds = 0;
+    public TransactionMetrics fetchTransactionWhenReady(String transactionId, Duration timeout, String... requiredProperties) {
+        String[] required = requiredProperties.length > 0 ? requiredProperties : readyProperties(transactionId);
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + timeout.toNanos();
+        long delayMillis = READY_POLL_INITIAL_DELAY_MS;
+        TransactionMetrics metrics = TransactionMetrics.empty(transactionId);
+        int attempts = 0;
+
+        while (true) {
+            attempts++;
+            try {
+                metrics = requestTransaction(transactionId);
+            } catch (Exception e) {
+                // The transaction may not be queryable yet right after it ends
+                System.out.println("Performance Transaction " + transactionId + " not available yet: " + e.getMessage());
+            }
 
-        try {
-            String json = new String(Files.readAllBytes(Paths.get(String.valueOf(jsonFile))), StandardCharsets.UTF_8);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            if (metrics.isPopulated(required)) {
+                System.out.println("Performance Transaction " + transactionId + " ready after " + elapsedMillis + " ms (" + attempts + " attempts)");
+                return metrics.withReadyAfterMillis(elapsedMillis);
+            }
+
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMillis <= 0) {
+                System.out.println("Performance Transaction " + transactionId + " not ready after " + elapsedMillis
+                        + " ms, using partially aggregated metrics");
+                return metrics;
+            }
+
+            // Exponential backoff with equal jitter so parallel forks do not poll in lockstep
+            long sleepMillis = delayMillis / 2 + ThreadLocalRandom.current().nextLong(delayMillis / 2 + 1);
+            try {
+                Thread.sleep(Math.min(sleepMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return metrics;
+            }
+            delayMillis = Math.min(delayMillis * 2, READY_POLL_MAX_DELAY_MS);
+        }
+    }
+
+    // Waits until the reporter has aggregated the metrics of the transaction, then stores them in the metrics store,
+    // exports the duration and checks the performance budget. Call once per transaction after endCapturePerformanceMetrics.
+    // requiredProperties are waited for in addition to the metrics the budget and PERF_REGRESSION_METRICS need.
+    public TransactionMetrics processTransaction(String transactionId, String... requiredProperties) {
+        Set<String> required = new LinkedHashSet<>(Arrays.asList(readyProperties(transactionId)));
+        required.addAll(Arrays.asList(requiredProperties));
+        TransactionMetrics metrics = fetchTransactionWhenReady(transactionId, required.toArray(new String[0]));
+        if (metrics.isPopulated(DEFAULT_READY_PROPERTIES)) {
+            recordTransaction(metrics);
+            exportTransactionDuration(metrics);
+            checkBudget(metrics);
+        }
+        return metrics;
+    }
+
+    // The default metrics plus every metric the transaction's budget limits and the regression check compares, so
+    // that no budget is checked and no row is stored before its metrics are aggregated
+    private String[] readyProperties(String transactionId) {
+        TransactionContext context = transactionContexts.get(transactionId);
+        Set<String> required = new LinkedHashSet<>(Arrays.asList(DEFAULT_READY_PROPERTIES));
+        if (context != null && !"off".equalsIgnoreCase(EnvironmentConfig.getPerformanceBudgetMode())) {
+            required.addAll(PerformanceBudgets.get().limitsFor(context.getTransactionName(), context.getNvProfile()).keySet());
+            // Network calls come from the HAR file, not from the transaction API
+            required.remove(PerformanceBudgets.NETWORK_CALLS);
+        }
+        if (context != null && !"off".equalsIgnoreCase(EnvironmentConfig.getPerformanceRegressionMode())) {
+            required.addAll(RegressionMetrics.CHECKED);
+        }
+        return required.toArray(new String[0]);
+    }
+
+    // Feeds the runner metrics (appium_performance_transaction_duration_seconds), once per transaction
+    private void exportTransactionDuration(TransactionMetrics metrics) {
+        TransactionContext context = transactionContexts.get(metrics.getTransactionId());
+        double durationMillis = PerformanceMetricsStore.parseValue(metrics.getDuration());
+        if (context != null && !Double.isNaN(durationMillis) && context.markMetricsExported()) {
+            RunnerMetrics.TRANSACTION_DURATION_SECONDS.observe(durationMillis / 1000.0, context.getTransactionName());
+        }
+    }
+
+    // Evaluates the transaction against performance_budgets.json, each limit once per transaction. Limits on metrics
+    // the reporter did not aggregate in time are logged and checked by a later processTransaction().
+    // maxNetworkCalls is checked by analyzeHARFile(), against the HAR file the test analyzes anyway.
+    private void checkBudget(TransactionMetrics metrics) {
+        TransactionContext context = transactionContexts.get(metrics.getTransactionId());
+        if (context == null || "off".equalsIgnoreCase(EnvironmentConfig.getPerformanceBudgetMode())) {
+            return;
+        }
 
-            // Gets "entries" array from .json file, since information like request time is contained within "entries"
-            JSONObject jsonObj = new JSONObject(json);
-            JSONArray entriesArr = jsonObj.getJSONObject("log").getJSONArray("entries");
-            numberOfNetworkCalls = entriesArr.length();
+        Map<String, Double> limits = PerformanceBudgets.get().limitsFor(context.getTransactionName(), context.getNvProfile());
+        Map<String, Double> actuals = new LinkedHashMap<>();
+        List<String> pending = new ArrayList<>();
+        for (String metric : limits.keySet()) {
+            if (PerformanceBudgets.NETWORK_CALLS.equals(metric)) {
+                continue;
+            }
+            double actual = PerformanceMetricsStore.parseValue(metrics.get(metric));
+            if (Double.isNaN(actual)) {
+                pending.add(metric);
+            } else if (context.markMetricBudgetChecked(metric)) {
+                actuals.put(metric, actual);
+            }
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("Performance budget of " + context.getTransactionName() + " not checked yet for " + pending
+                    + ", the metrics are not aggregated");
+        }
+        reportBudgetViolations(context, PerformanceBudgets.evaluate(limits, actuals));
+    }
+
+    private void checkNetworkBudget(String transactionId, HarMetrics harMetrics) {
+        TransactionContext context = transactionContexts.get(transactionId);
+        if (context == null || "off".equalsIgnoreCase(EnvironmentConfig.getPerformanceBudgetMode())
+                || !context.markNetworkBudgetChecked()) {
+            return;
+        }
+
+        Map<String, Double> limits = new LinkedHashMap<>();
+        Double maxNetworkCalls = PerformanceBudgets.get().limitsFor(context.getTransactionName(), context.getNvProfile())
+                .get(PerformanceBudgets.NETWORK_CALLS);
+        if (maxNetworkCalls != null) {
+            limits.put(PerformanceBudgets.NETWORK_CALLS, maxNetworkCalls);
+        }
+        Map<String, Double> actuals = new LinkedHashMap<>();
+        actuals.put(PerformanceBudgets.NETWORK_CALLS, (double) harMetrics.getEntryCount());
+        reportBudgetViolations(context, PerformanceBudgets.evaluate(limits, actuals));
+    }
+
+    private void reportBudgetViolations(TransactionContext context, List<PerformanceBudgets.Violation> violations) {
+        if (violations.isEmpty()) {
+            return;
+        }
+        context.addBudgetViolations(violations);
+        List<String> messages = new ArrayList<>();
+        for (PerformanceBudgets.Violation violation : violations) {
+            RunnerMetrics.BUDGET_VIOLATIONS.inc(context.getTransactionName(), violation.getMetric());
+            messages.add(violation.toString());
+            addReportStep("Performance budget exceeded in " + context.getTransactionName() + " - " + violation, "false");
+        }
+        String message = "Performance budget exceeded in " + context.getTransactionName() + ": " + String.join("; ", messages);
+        System.out.println(message);
+        setReportStatus("Failed", message);
+    }
 
-            long totalTimeMs = 0;
+    // Fails the test if the transaction exceeded its budget and PERF_BUDGET_MODE=fail. Budget violations
+    // are always reported through setReportStatus when the metrics arrive.
+    public void assertWithinBudget(String transactionId) {
+        TransactionContext context = transactionId != null ? transactionContexts.get(transactionId) : null;
+        if (context == null || !"fail".equalsIgnoreCase(EnvironmentConfig.getPerformanceBudgetMode())) {
+            return;
+        }
+        List<PerformanceBudgets.Violation> violations = context.getBudgetViolations();
+        if (!violations.isEmpty()) {
+            throw new AssertionError("Performance budget exceeded in " + context.getTransactionName() + ": " + violations);
+        }
+    }
 
-            // Finds all the "time" objects from "entries"
-            for (int i = 0; i < numberOfNetworkCalls; i++) {
-                JSONObject entryObj = entriesArr.getJSONObject(i);
-                long time = entryObj.getLong("time");
-                totalTimeMs += time;
+    // Appends the transaction's metrics to the local metrics store, once per transaction
+    private void recordTransaction(TransactionMetrics metrics) {
+        TransactionContext context = transactionContexts.get(metrics.getTransactionId());
+        if (context == null || context.getStoreRow() >= 0 || !EnvironmentConfig.isPerformanceMetricsStoreEnabled()) {
+            return;
+        }
+        synchronized (context) {
+            if (context.getStoreRow() >= 0) {
+                return;
+            }
+            try {
+                context.setStoreRow(PerformanceMetricsStore.append(context, metrics, System.currentTimeMillis()));
+            } catch (IOException e) {
+                System.out.println("Could not record Performance Transaction " + metrics.getTransactionId() + " in the metrics store: " + e.getMessage());
             }
+        }
+    }
 
-            // Since "time" object is in Milliseconds, converting the total value accumulated to Seconds
-            totalTimeTakenForNetworkCallsInSeconds = (double) totalTimeMs / 1000;
+    // Compares the transaction with earlier runs of the same series (PERF_REGRESSION_METRICS, default speedIndex and memMax).
+    // Regressions are added as failed report steps; with PERF_REGRESSION_MODE=fail the test is also failed.
+    public List<RegressionDetector.Result> checkForRegressions(TransactionMetrics metrics) {
+        List<RegressionDetector.Result> results = new ArrayList<>();
+        String mode = EnvironmentConfig.getPerformanceRegressionMode();
+        TransactionContext context = transactionContexts.get(metrics.getTransactionId());
+        if ("off".equalsIgnoreCase(mode) || context == null) {
+            return results;
+        }
+        recordTransaction(metrics);
+        if (context.getStoreRow() < 0) {
+            return results;
+        }
 
-            metrics.add("Number of Network Calls made: " + numberOfNetworkCalls);
-            metrics.add("Total time taken for all Network Calls in Seconds: " + totalTimeTakenForNetworkCallsInSeconds);
+        PerformanceMetricsStore.Series series;
+        try {
+            series = PerformanceMetricsStore.read(context);
         } catch (IOException e) {
-            e.printStackTrace();
+            System.out.println("Could not read metrics series " + context.getSeriesKey() + ": " + e.getMessage());
+            return results;
+        }
+
+        RegressionDetector detector = new RegressionDetector(
+                EnvironmentConfig.getPerformanceRegressionWindow(),
+                EnvironmentConfig.getPerformanceRegressionMinBaseline(),
+                EnvironmentConfig.getPerformanceRegressionMadMultiplier(),
+                EnvironmentConfig.getPerformanceRegressionMinIncreasePercent() / 100.0);
+
+        List<String> regressions = new ArrayList<>();
+        for (String metric : RegressionMetrics.CHECKED) {
+            RegressionDetector.Result result = detector.evaluate(metric, series.getColumn(metric), (int) context.getStoreRow());
+            System.out.println("Regression check for " + context.getTransactionName() + " - " + result);
+            results.add(result);
+            if (result.isRegressed()) {
+                RunnerMetrics.REGRESSIONS.inc(context.getTransactionName(), metric);
+                regressions.add(result.toString());
+                addReportStep("Performance regression in " + context.getTransactionName() + " - " + result, "false");
+            }
+        }
+
+        if (!regressions.isEmpty() && "fail".equalsIgnoreCase(mode)) {
+            String message = "Performance regression in " + context.getTransactionName() + ": " + String.join("; ", regressions);
+            setReportStatus("Failed", message);
+            throw new AssertionError(message);
         }
+        return results;
+    }
+
+    private TransactionMetrics requestTransaction(String transactionId) throws IOException {
+        URI uri = URI.create(getApiBaseUrl() + "/reporter/api/transactions/" + transactionId);
+        String body = ReporterHttpClient.getString(uri, EnvironmentConfig.getAccessKey());
+
+        return TransactionMetrics.fromJson(transactionId, body);
+    }
+
+    // This method helps to extract metrics from the HAR file, which can help us understand various metrics
+    // such as "How many network calls were made during the Transaction".
+    // Use analyzeHARFile() for the full report (percentiles, per-host / per-MIME-type breakdowns, timing phases...)
+    public ArrayList<String> extractHARFileMetrics(String transactionId, String fileName) throws IOException, URISyntaxException {
+        HarMetrics harMetrics = analyzeHARFile(transactionId, fileName);
+        return harMetrics != null ? summarizeHARMetrics(harMetrics) : new ArrayList<>();
+    }
 
+    // The report lines extractHARFileMetrics() returns for an analyzed HAR file
+    public static ArrayList<String> summarizeHARMetrics(HarMetrics harMetrics) {
+        ArrayList<String> metrics = new ArrayList<>();
+        metrics.add("Number of Network Calls made: " + harMetrics.getEntryCount());
+        metrics.add("Total time taken for all Network Calls in Seconds: " + harMetrics.getTotalTimeSeconds());
         return metrics;
     }
 
-    // This method is used to download HAR file from individual Performance Transactions
+    // Downloads the HAR file of the Transaction and computes the full HarMetrics report for assertions.
+    // Returns null if the HAR file could not be read.
+    public HarMetrics analyzeHARFile(String transactionId, String fileName) throws IOException, URISyntaxException {
+        // Getting .har file from the HAR artifact store
+        String harName = fileName + "_" + getCurrentDateAndTime();
+        downloadHARFileFromPerformanceTransaction(transactionId, harName);
+
+        // Streams through the HAR file once; response bodies are never loaded into memory
+        try (InputStream harContent = harStore().open(harName + ".har")) {
+            HarMetrics harMetrics = HarAnalyzer.analyze(harContent, HarAnalyzer.DEFAULT_TOP_N);
+            checkNetworkBudget(transactionId, harMetrics);
+            return harMetrics;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // This method is used to download HAR file from individual Performance Transactions.
+    // The file is stored in har_files/, gzip-compressed (.har.gz) unless ARTIFACT_COMPRESSION=none
     public File downloadHARFileFromPerformanceTransaction(String transactionId, String fileName) throws IOException, URISyntaxException {
 
         // Calls API to get HAR file
@@ -130,41 +450,45 @@ public class PerformanceHelpers {
                 .setParameter("token", EnvironmentConfig.getAccessKey())
                 .build();
 
-        HttpClient httpClient = HttpClientBuilder.create().build();
-        HttpGet httpGet = new HttpGet(uri);
-        org.apache.http.HttpResponse response = httpClient.execute(httpGet);
+        // HAR file is streamed to the artifact store over the shared connection pool
+        Path harFile = ReporterHttpClient.download(uri, EnvironmentConfig.isHarDownloadGzipEnabled(), harStore(), fileName + ".har");
+        System.out.println("Downloaded HAR file for Performance Transaction " + transactionId + " (" + Files.size(harFile) + " bytes stored): " + harFile);
 
-        // HAR file is saved to local folder
-        File harFile = new File(System.getProperty("user.dir") + "/har_files/" + fileName + ".har");
-        FileOutputStream outputStream = new FileOutputStream(harFile);
-        response.getEntity().writeTo(outputStream);
-        outputStream.close();
+        return harFile.toFile();
+    }
 
-        return harFile;
+    // Size- and age-bounded, see ArtifactStore
+    private static ArtifactStore harStore() {
+        return ArtifactStore.forDirectory(Paths.get(System.getProperty("user.dir"), "har_files"));
     }
 
     public void setReportStatus(String status, String message) {
-        driver.executeScript("seetest:client.setReportStatus", status, status, message);
+        reporting.setReportStatus(status, message);
     }
 
     public void addReportStep(String input) {
-        driver.executeScript("seetest:client.report", input, "true");
+        reporting.addStep(input, "true");
     }
 
     public void addReportStep(String input, String status) {
-        driver.executeScript("seetest:client.report", input, status);
+        reporting.addStep(input, status);
     }
 
     public void addPropertyForReporting(String property, String value) {
-        driver.executeScript("seetest:client.addTestProperty", property, value);
+        reporting.addProperty(property, value);
     }
 
     public void startGroupingOfSteps(String testName) {
-        driver.executeScript("seetest:client.startStepsGroup", testName);
+        reporting.startStepsGroup(testName);
     }
 
     public void endGroupingOfSteps() {
-        driver.executeScript("seetest:client.stopStepsGroup");
+        reporting.stopStepsGroup();
+    }
+
+    // Sends the buffered report steps and properties; call before driver.quit()
+    public void flushReporting() {
+        reporting.flush();
     }
 
     public String getCurrentDateAndTime() {
@@ -180,4 +504,22 @@ public class PerformanceHelpers {
         // Remove /wd/hub suffix if present
         return cloudUrl.replaceAll("/wd/hub$", "");
     }
+
+    // PERF_REGRESSION_METRICS, validated once against the columns of the metrics store
+    private static class RegressionMetrics {
+        private static final List<String> CHECKED = load();
+
+        private static List<String> load() {
+            List<String> known = Arrays.asList(PerformanceMetricsStore.METRICS);
+            List<String> checked = new ArrayList<>();
+            for (String metric : EnvironmentConfig.getPerformanceRegressionMetrics()) {
+                if (known.contains(metric)) {
+                    checked.add(metric);
+                } else {
+                    System.out.println("PERF_REGRESSION_METRICS - Ignoring unknown metric " + metric + ". Known metrics: " + known);
+                }
+            }
+            return checked;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,188 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import utils.Hashes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Append-only, columnar store of Performance Transaction metrics under reports/perf-metrics/.
+ *
+ * Each series (transaction name, platform, nvProfile, captureLevel, device model) is a directory holding one
+ * binary file per column: timestamps.col with 8-byte epoch millis and &lt;metric&gt;.col with 8-byte doubles
+ * (NaN when the reporter did not return the metric). A row is appended by writing every metric column first
+ * and the timestamp last, so a row only counts once its timestamp is written; a torn append is overwritten by
+ * the next one. Appends are serialized with a file lock so parallel Gradle forks can share the store.
+ */
+public class PerformanceMetricsStore {
+
+    public static final String[] METRICS = {"speedIndex", "duration", "cpuAvg", "cpuMax", "memAvg", "memMax", "batteryAvg", "batteryMax"};
+
+    private static final Path STORE_DIR = Paths.get("reports", "perf-metrics");
+    private static final String TIMESTAMPS_COLUMN = "timestamps";
+    private static final int VALUE_BYTES = Long.BYTES;
+
+    private PerformanceMetricsStore() {}
+
+    // Appends the transaction's metrics to its series and returns the row index
+    public static long append(TransactionContext context, TransactionMetrics metrics, long timestampMillis) throws IOException {
+        Path seriesDir = seriesDirectory(context);
+        synchronized (PerformanceMetricsStore.class) {
+            Files.createDirectories(seriesDir);
+            try (FileChannel lockChannel = FileChannel.open(seriesDir.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                writeSeriesDescriptor(seriesDir, context);
+                long row = committedRows(seriesDir);
+                long offset = row * VALUE_BYTES;
+
+                for (String metric : METRICS) {
+                    ByteBuffer value = ByteBuffer.allocate(VALUE_BYTES).putDouble(0, parseValue(metrics.get(metric)));
+                    writeAt(column(seriesDir, metric), offset, value);
+                }
+                writeAt(column(seriesDir, TIMESTAMPS_COLUMN), offset, ByteBuffer.allocate(VALUE_BYTES).putLong(0, timestampMillis));
+                return row;
+            }
+        }
+    }
+
+    // Reads the committed rows of the series the transaction belongs to; empty if nothing was recorded yet
+    public static Series read(TransactionContext context) throws IOException {
+        Path seriesDir = seriesDirectory(context);
+        int rows = (int) committedRows(seriesDir);
+
+        long[] timestamps = new long[rows];
+        if (rows > 0) {
+            readColumn(column(seriesDir, TIMESTAMPS_COLUMN), rows).asLongBuffer().get(timestamps);
+        }
+
+        Map<String, double[]> columns = new LinkedHashMap<>();
+        for (String metric : METRICS) {
+            double[] values = new double[rows];
+            Path file = column(seriesDir, metric);
+            if (rows > 0 && Files.exists(file)) {
+                readColumn(file, rows).asDoubleBuffer().get(values);
+            } else {
+                Arrays.fill(values, Double.NaN);
+            }
+            columns.put(metric, values);
+        }
+        return new Series(context.getSeriesKey(), timestamps, columns);
+    }
+
+    static double parseValue(String value) {
+        if (value == null || value.isEmpty()) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static long committedRows(Path seriesDir) throws IOException {
+        Path timestamps = column(seriesDir, TIMESTAMPS_COLUMN);
+        return Files.exists(timestamps) ? Files.size(timestamps) / VALUE_BYTES : 0;
+    }
+
+    private static void writeAt(Path file, long offset, ByteBuffer value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop anything past the committed rows left behind by an interrupted append
+            if (channel.size() > offset) {
+                channel.truncate(offset);
+            }
+            while (value.hasRemaining()) {
+                channel.write(value, offset + value.position());
+            }
+        }
+    }
+
+    private static ByteBuffer readColumn(Path file, int rows) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(rows * VALUE_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // keep reading until all committed rows are in the buffer
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeSeriesDescriptor(Path seriesDir, TransactionContext context) throws IOException {
+        Path descriptor = seriesDir.resolve("series.properties");
+        if (Files.exists(descriptor)) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("transactionName", context.getTransactionName());
+        properties.setProperty("platform", context.getPlatform());
+        properties.setProperty("nvProfile", context.getNvProfile());
+        properties.setProperty("captureLevel", context.getCaptureLevel());
+        properties.setProperty("deviceModel", context.getDeviceModel());
+        properties.setProperty("columns", TIMESTAMPS_COLUMN + "," + String.join(",", METRICS));
+        try (OutputStream out = Files.newOutputStream(descriptor)) {
+            properties.store(out, "Performance Transaction metrics series");
+        }
+    }
+
+    private static Path column(Path seriesDir, String name) {
+        return seriesDir.resolve(name + ".col");
+    }
+
+    // Readable prefix for browsing plus a hash of the full key so different series never share a directory
+    static Path seriesDirectory(TransactionContext context) {
+        String key = context.getSeriesKey();
+        String readable = key.replaceAll("[^A-Za-z0-9._-]+", "_");
+        if (readable.length() > 80) {
+            readable = readable.substring(0, 80);
+        }
+        return STORE_DIR.resolve(readable + "-" + Hashes.sha256(key).substring(0, 12));
+    }
+
+    /**
+     * The committed rows of one series, oldest first.
+     */
+    public static class Series {
+        private final String key;
+        private final long[] timestamps;
+        private final Map<String, double[]> columns;
+
+        Series(String key, long[] timestamps, Map<String, double[]> columns) {
+            this.key = key;
+            this.timestamps = timestamps;
+            this.columns = columns;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int size() {
+            return timestamps.length;
+        }
+
+        public long[] getTimestamps() {
+            return timestamps;
+        }
+
+        // Values of one metric by row; NaN where the metric was not reported
+        public double[] getColumn(String metric) {
+            double[] values = columns.get(metric);
+            if (values == null) {
+                throw new IllegalArgumentException("Unknown metric: " + metric + ". Known metrics: " + Arrays.toString(METRICS));
+            }
+            return values;
+        }
+    }
+}
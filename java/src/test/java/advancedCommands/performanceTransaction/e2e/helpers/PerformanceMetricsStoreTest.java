@@ -0,0 +1,105 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of {@link PerformanceMetricsStore}: NaN for missing metrics and the timestamp column as commit marker.
+ * Each test writes its own series under reports/perf-metrics/ and deletes it afterwards.
+ */
+public class PerformanceMetricsStoreTest {
+
+    private TransactionContext context;
+    private Path seriesDir;
+
+    @BeforeMethod
+    public void createSeries() {
+        context = new TransactionContext("tx-1", "PerformanceMetricsStoreTest-" + System.nanoTime(),
+                "Android", "4G-average", "Application", "Pixel");
+        seriesDir = PerformanceMetricsStore.seriesDirectory(context);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteSeries() throws IOException {
+        if (Files.exists(seriesDir)) {
+            try (Stream<Path> files = Files.walk(seriesDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void emptySeriesHasNoRows() throws IOException {
+        assertEquals(PerformanceMetricsStore.read(context).size(), 0);
+    }
+
+    @Test
+    public void missingMetricsAreStoredAsNaN() throws IOException {
+        TransactionMetrics metrics = TransactionMetrics.fromJson("tx-1",
+                "{\"speedIndex\": \"1200\", \"duration\": \"3000\", \"cpuAvg\": \"\", \"memAvg\": \"n/a\"}");
+
+        assertEquals(PerformanceMetricsStore.append(context, metrics, 1000L), 0L);
+        PerformanceMetricsStore.Series series = PerformanceMetricsStore.read(context);
+
+        assertEquals(series.size(), 1);
+        assertEquals(series.getTimestamps(), new long[]{1000L});
+        assertEquals(series.getColumn("speedIndex"), new double[]{1200}, 0.0);
+        assertEquals(series.getColumn("duration"), new double[]{3000}, 0.0);
+        assertTrue(Double.isNaN(series.getColumn("cpuAvg")[0]), "empty value");
+        assertTrue(Double.isNaN(series.getColumn("memAvg")[0]), "unparseable value");
+        assertTrue(Double.isNaN(series.getColumn("batteryMax")[0]), "metric not reported");
+    }
+
+    @Test
+    public void metricColumnsWithoutTimestampAreNotCommitted() throws IOException {
+        PerformanceMetricsStore.append(context, metrics("1000"), 1000L);
+        // An append interrupted after its metric columns but before its timestamp
+        appendRaw("speedIndex", ByteBuffer.allocate(Long.BYTES).putDouble(0, 9999));
+
+        assertEquals(PerformanceMetricsStore.read(context).size(), 1);
+
+        // The next append overwrites the torn row
+        assertEquals(PerformanceMetricsStore.append(context, metrics("2000"), 2000L), 1L);
+        PerformanceMetricsStore.Series series = PerformanceMetricsStore.read(context);
+        assertEquals(series.getTimestamps(), new long[]{1000L, 2000L});
+        assertEquals(series.getColumn("speedIndex"), new double[]{1000, 2000}, 0.0);
+        assertEquals(Files.size(seriesDir.resolve("speedIndex.col")), 2L * Long.BYTES);
+    }
+
+    @Test
+    public void partialTimestampIsNotCommitted() throws IOException {
+        PerformanceMetricsStore.append(context, metrics("1000"), 1000L);
+        // A timestamp cut short by a crash
+        appendRaw("timestamps", ByteBuffer.allocate(Integer.BYTES).putInt(0, 42));
+
+        assertEquals(PerformanceMetricsStore.read(context).size(), 1);
+
+        PerformanceMetricsStore.append(context, metrics("2000"), 2000L);
+        assertEquals(PerformanceMetricsStore.read(context).getTimestamps(), new long[]{1000L, 2000L});
+    }
+
+    private static TransactionMetrics metrics(String speedIndex) {
+        return TransactionMetrics.fromJson("tx-1", "{\"speedIndex\": \"" + speedIndex + "\"}");
+    }
+
+    private void appendRaw(String column, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(seriesDir.resolve(column + ".col"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
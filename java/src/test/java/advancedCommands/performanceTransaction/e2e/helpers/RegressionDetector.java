@@ -0,0 +1,130 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import java.util.Arrays;
+
+/**
+ * Compares the latest value of a metric with a rolling baseline of earlier runs from {@link PerformanceMetricsStore}.
+ *
+ * The baseline is the median of the previous runs, and its spread the median absolute deviation (MAD), which
+ * unlike mean / standard deviation is not pulled around by a few outlier runs. A value regresses when it exceeds
+ * the median by more than madMultiplier * MAD (scaled to be comparable to a standard deviation) and by at least
+ * minRelativeIncrease of the median, so very stable series do not flag noise-level changes. All tracked metrics
+ * are "lower is better".
+ */
+public class RegressionDetector {
+
+    // Scales the MAD to estimate the standard deviation of normally distributed values
+    private static final double MAD_SCALE = 1.4826;
+
+    private final int window;
+    private final int minBaselineSize;
+    private final double madMultiplier;
+    private final double minRelativeIncrease;
+
+    public RegressionDetector(int window, int minBaselineSize, double madMultiplier, double minRelativeIncrease) {
+        this.window = window;
+        this.minBaselineSize = minBaselineSize;
+        this.madMultiplier = madMultiplier;
+        this.minRelativeIncrease = minRelativeIncrease;
+    }
+
+    // Evaluates row latestRow of the column against up to window earlier rows; NaN rows are ignored
+    public Result evaluate(String metric, double[] column, int latestRow) {
+        double latest = column[latestRow];
+        double[] baseline = new double[Math.min(window, latestRow)];
+        int size = 0;
+        for (int row = latestRow - 1; row >= 0 && size < baseline.length; row--) {
+            if (!Double.isNaN(column[row])) {
+                baseline[size++] = column[row];
+            }
+        }
+
+        if (Double.isNaN(latest) || size < minBaselineSize) {
+            return new Result(metric, latest, Double.NaN, Double.NaN, Double.NaN, size, false);
+        }
+
+        double[] values = Arrays.copyOf(baseline, size);
+        double median = median(values);
+        double[] deviations = new double[size];
+        for (int i = 0; i < size; i++) {
+            deviations[i] = Math.abs(values[i] - median);
+        }
+        double mad = median(deviations) * MAD_SCALE;
+        double threshold = median + Math.max(madMultiplier * mad, minRelativeIncrease * Math.abs(median));
+
+        return new Result(metric, latest, median, mad, threshold, size, latest > threshold);
+    }
+
+    // Sorts values in place
+    static double median(double[] values) {
+        Arrays.sort(values);
+        int middle = values.length / 2;
+        return values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+    }
+
+    /**
+     * Outcome of evaluating one metric of one transaction.
+     */
+    public static class Result {
+        private final String metric;
+        private final double latest;
+        private final double baselineMedian;
+        private final double baselineMad;
+        private final double threshold;
+        private final int baselineSize;
+        private final boolean regressed;
+
+        Result(String metric, double latest, double baselineMedian, double baselineMad, double threshold,
+               int baselineSize, boolean regressed) {
+            this.metric = metric;
+            this.latest = latest;
+            this.baselineMedian = baselineMedian;
+            this.baselineMad = baselineMad;
+            this.threshold = threshold;
+            this.baselineSize = baselineSize;
+            this.regressed = regressed;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public double getLatest() {
+            return latest;
+        }
+
+        public double getBaselineMedian() {
+            return baselineMedian;
+        }
+
+        public double getBaselineMad() {
+            return baselineMad;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        public int getBaselineSize() {
+            return baselineSize;
+        }
+
+        // False when there is not enough history yet to judge
+        public boolean isEvaluated() {
+            return !Double.isNaN(threshold);
+        }
+
+        public boolean isRegressed() {
+            return regressed;
+        }
+
+        @Override
+        public String toString() {
+            if (!isEvaluated()) {
+                return String.format("%s: %.1f (not evaluated, %d baseline runs)", metric, latest, baselineSize);
+            }
+            return String.format("%s: %.1f vs baseline median %.1f (MAD %.1f, threshold %.1f, %d runs)%s",
+                    metric, latest, baselineMedian, baselineMad, threshold, baselineSize, regressed ? " REGRESSED" : "");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the median / MAD thresholds of {@link RegressionDetector}. No device or cloud needed.
+ */
+public class RegressionDetectorTest {
+
+    private static final double NaN = Double.NaN;
+
+    // window 10, at least 3 baseline runs, 3 scaled MADs and at least 10% over the median
+    private final RegressionDetector detector = new RegressionDetector(10, 3, 3.0, 0.1);
+
+    @Test
+    public void medianOfOddAndEvenCounts() {
+        assertEquals(RegressionDetector.median(new double[]{5, 1, 3}), 3.0, 0.0);
+        assertEquals(RegressionDetector.median(new double[]{4, 1, 3, 2}), 2.5, 0.0);
+    }
+
+    @Test
+    public void thresholdIsMedianPlusScaledMad() {
+        // Median 100, deviations 0, 40, 20, 20, 40: MAD 20 * 1.4826
+        RegressionDetector.Result result = detector.evaluate("duration", new double[]{100, 140, 80, 120, 60, 150}, 5);
+
+        assertTrue(result.isEvaluated());
+        assertEquals(result.getBaselineSize(), 5);
+        assertEquals(result.getBaselineMedian(), 100.0, 1e-9);
+        assertEquals(result.getBaselineMad(), 20 * 1.4826, 1e-9);
+        assertEquals(result.getThreshold(), 100 + 3 * 20 * 1.4826, 1e-9);
+        assertFalse(result.isRegressed(), "150 is within the spread of a noisy baseline");
+
+        assertTrue(detector.evaluate("duration", new double[]{100, 140, 80, 120, 60, 190}, 5).isRegressed());
+    }
+
+    @Test
+    public void stableSeriesUsesTheRelativeFloor() {
+        // The MAD of a near-constant series is tiny, so the threshold is 10% over the median
+        double[] column = {100, 102, 98, 101, 99, 105};
+        RegressionDetector.Result result = detector.evaluate("speedIndex", column, 5);
+
+        assertEquals(result.getThreshold(), 110.0, 1e-9);
+        assertFalse(result.isRegressed());
+
+        column[5] = 111;
+        assertTrue(detector.evaluate("speedIndex", column, 5).isRegressed());
+    }
+
+    @Test
+    public void nanRowsAreSkippedInTheBaseline() {
+        // NaN rows do not count towards the window or the minimum baseline size
+        double[] column = {1000, 1000, 1000, 100, NaN, 100, NaN, 100, 150};
+        RegressionDetector narrowWindow = new RegressionDetector(3, 3, 3.0, 0.1);
+        RegressionDetector.Result result = narrowWindow.evaluate("cpuAvg", column, 8);
+
+        assertEquals(result.getBaselineSize(), 3);
+        assertEquals(result.getBaselineMedian(), 100.0, 0.0);
+        assertTrue(result.isRegressed());
+    }
+
+    @Test
+    public void notEvaluatedWithoutEnoughHistory() {
+        RegressionDetector.Result result = detector.evaluate("memMax", new double[]{100, NaN, 100, 500}, 3);
+
+        assertFalse(result.isEvaluated());
+        assertFalse(result.isRegressed());
+        assertEquals(result.getBaselineSize(), 2);
+    }
+
+    @Test
+    public void nanLatestValueIsNotEvaluated() {
+        RegressionDetector.Result result = detector.evaluate("batteryMax", new double[]{100, 100, 100, NaN}, 3);
+
+        assertFalse(result.isEvaluated());
+        assertFalse(result.isRegressed());
+    }
+
+    @Test
+    public void onlyRowsBeforeTheLatestAreTheBaseline() {
+        // Row 3 is evaluated; the later, higher rows must not raise its baseline
+        RegressionDetector.Result result = detector.evaluate("duration", new double[]{100, 100, 100, 200, 900, 900}, 3);
+
+        assertEquals(result.getBaselineSize(), 3);
+        assertTrue(result.isRegressed());
+    }
+}
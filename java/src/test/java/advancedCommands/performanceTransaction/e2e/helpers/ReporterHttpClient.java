@@ -0,0 +1,135 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import utils.ArtifactStore;
+import utils.EnvironmentConfig;
+import utils.FlightRecorderEvents;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Shared HTTP client for the Reporter API (transaction metrics and HAR downloads).
+ *
+ * Connections are pooled and kept alive between calls, so the many API calls made during a run reuse
+ * a few TLS connections instead of opening a new one per call. Responses are always consumed and closed
+ * so connections go back to the pool, also when the call fails.
+ */
+public class ReporterHttpClient {
+
+    private static final int TRANSFER_BUFFER_BYTES = 64 * 1024;
+
+    private static final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    private static final CloseableHttpClient httpClient;
+
+    static {
+        int maxConnections = EnvironmentConfig.getReporterHttpMaxConnections();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        // Re-check connections the server may have closed while they were idle in the pool
+        connectionManager.setValidateAfterInactivity(10_000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(15_000)
+                .setConnectionRequestTimeout(30_000)
+                .setSocketTimeout(120_000)
+                .build();
+
+        // Content compression is handled per request so HAR downloads can opt in to gzip
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableContentCompression()
+                .evictExpiredConnections()
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .build();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(ReporterHttpClient::close, "reporter-http-client-shutdown"));
+    }
+
+    private ReporterHttpClient() {}
+
+    // GET returning the response body as a string; throws IOException for non-2xx responses
+    public static String getString(URI uri, String bearerToken) throws IOException {
+        HttpGet request = new HttpGet(uri);
+        if (bearerToken != null) {
+            request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + bearerToken);
+        }
+
+        FlightRecorderEvents.ReporterApiCall event = new FlightRecorderEvents.ReporterApiCall();
+        event.begin();
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            int status = response.getStatusLine().getStatusCode();
+            event.statusCode = status;
+            if (status < 200 || status >= 300) {
+                EntityUtils.consume(entity);
+                throw new IOException("GET " + uri.getPath() + " returned HTTP " + status);
+            }
+            return entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
+        } finally {
+            // The path only; the query string can carry the access key
+            event.path = uri.getPath();
+            event.commit();
+        }
+    }
+
+    // Streams the response body into the artifact store as artifact name and returns the stored file. The artifact
+    // only replaces an earlier one once the body is complete. A gzip-encoded body goes into a gzip store as is,
+    // without being decompressed and compressed again; bodies stored as is are written with FileChannel.transferFrom.
+    public static Path download(URI uri, boolean gzip, ArtifactStore store, String name) throws IOException {
+        HttpGet request = new HttpGet(uri);
+        if (gzip) {
+            request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        }
+
+        FlightRecorderEvents.HarDownload event = new FlightRecorderEvents.HarDownload();
+        event.file = name;
+        event.begin();
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            int status = response.getStatusLine().getStatusCode();
+            event.statusCode = status;
+            if (status < 200 || status >= 300 || entity == null) {
+                EntityUtils.consume(entity);
+                throw new IOException("GET " + uri.getPath() + " returned HTTP " + status);
+            }
+
+            boolean gzipEncoded = entity.getContentEncoding() != null && "gzip".equalsIgnoreCase(entity.getContentEncoding().getValue());
+            try (InputStream body = gzipEncoded && !store.isGzip() ? new GZIPInputStream(entity.getContent(), TRANSFER_BUFFER_BYTES) : entity.getContent();
+                 ArtifactStore.Output artifact = gzipEncoded && store.isGzip() ? store.createPrecompressed(name) : store.create(name)) {
+                artifact.transferFrom(Channels.newChannel(body));
+                Path file = artifact.commit();
+                event.bytes = Files.size(file);
+                event.file = file.getFileName().toString();
+                return file;
+            }
+        } finally {
+            event.gzip = gzip;
+            event.commit();
+        }
+    }
+
+    private static void close() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            System.err.println("ReporterHttpClient - Could not close HTTP client: " + e.getMessage());
+        }
+    }
+}
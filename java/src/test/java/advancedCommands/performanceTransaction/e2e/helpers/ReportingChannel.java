@@ -0,0 +1,105 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.openqa.selenium.JavascriptExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends seetest:client report commands (steps, test properties, steps groups) for one driver.
+ *
+ * Report steps and test properties are buffered and sent as one batch, in the order they were added, when a steps
+ * group starts or stops, when the report status is set, on flush() and when MAX_PENDING commands are buffered.
+ * Test properties are coalesced: a property set again before the batch is sent is only sent once, with its latest
+ * value. Every command is sent on the caller's thread, so the driver is never used by two threads and a failed
+ * command fails the test as it did when each call was sent directly.
+ *
+ * Call flush() (or close()) before driver.quit(), otherwise buffered commands are lost with the session.
+ */
+public class ReportingChannel implements AutoCloseable {
+
+    private static final int MAX_PENDING = 100;
+
+    private final JavascriptExecutor driver;
+    private final boolean buffered;
+    private final List<PendingCommand> pending = new ArrayList<>();
+    // Buffered addTestProperty commands by property, to replace their value in place
+    private final Map<String, PendingCommand> pendingProperties = new HashMap<>();
+
+    public ReportingChannel(JavascriptExecutor driver, boolean buffered) {
+        this.driver = driver;
+        this.buffered = buffered;
+    }
+
+    public synchronized void addStep(String message, String status) {
+        buffer(new PendingCommand("seetest:client.report", message, status));
+    }
+
+    public synchronized void addProperty(String property, String value) {
+        PendingCommand existing = pendingProperties.get(property);
+        if (existing != null) {
+            existing.args[1] = value;
+            return;
+        }
+        PendingCommand command = new PendingCommand("seetest:client.addTestProperty", property, value);
+        if (buffered) {
+            pendingProperties.put(property, command);
+        }
+        buffer(command);
+    }
+
+    public synchronized void startStepsGroup(String name) {
+        flush();
+        driver.executeScript("seetest:client.startStepsGroup", name);
+    }
+
+    public synchronized void stopStepsGroup() {
+        flush();
+        driver.executeScript("seetest:client.stopStepsGroup");
+    }
+
+    public synchronized void setReportStatus(String status, String message) {
+        flush();
+        driver.executeScript("seetest:client.setReportStatus", status, status, message);
+    }
+
+    // Sends the buffered commands in order; a command that fails stays buffered with the ones after it
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            PendingCommand command = pending.get(0);
+            driver.executeScript(command.script, command.args);
+            pending.remove(0);
+            if (command.script.equals("seetest:client.addTestProperty")) {
+                pendingProperties.remove((String) command.args[0]);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private void buffer(PendingCommand command) {
+        if (!buffered) {
+            driver.executeScript(command.script, command.args);
+            return;
+        }
+        pending.add(command);
+        if (pending.size() >= MAX_PENDING) {
+            flush();
+        }
+    }
+
+    private static class PendingCommand {
+        private final String script;
+        private final Object[] args;
+
+        private PendingCommand(String script, Object... args) {
+            this.script = script;
+            this.args = args;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * What PerformanceHelpers knows about a Performance Transaction besides its metrics: the capture settings
+ * given at start, the name given at end, and the device it ran on. Identifies the metrics series the
+ * transaction belongs to in {@link PerformanceMetricsStore}.
+ */
+public class TransactionContext {
+
+    private final String transactionId;
+    private final String transactionName;
+    private final String platform;
+    private final String nvProfile;
+    private final String captureLevel;
+    private final String deviceModel;
+    private volatile ClientSpans clientSpans;
+    private volatile long storeRow = -1;
+    private final Set<String> budgetCheckedMetrics = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean networkBudgetChecked = new AtomicBoolean();
+    private final AtomicBoolean metricsExported = new AtomicBoolean();
+    private final List<PerformanceBudgets.Violation> budgetViolations = new CopyOnWriteArrayList<>();
+
+    public TransactionContext(String transactionId, String transactionName, String platform,
+                              String nvProfile, String captureLevel, String deviceModel) {
+        this.transactionId = transactionId;
+        this.transactionName = transactionName;
+        this.platform = platform;
+        this.nvProfile = nvProfile;
+        this.captureLevel = captureLevel;
+        this.deviceModel = deviceModel;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public String getTransactionName() {
+        return transactionName;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public String getNvProfile() {
+        return nvProfile;
+    }
+
+    public String getCaptureLevel() {
+        return captureLevel;
+    }
+
+    public String getDeviceModel() {
+        return deviceModel;
+    }
+
+    // WebDriver commands sent while the transaction was captured, or null if the driver was not instrumented
+    public ClientSpans getClientSpans() {
+        return clientSpans;
+    }
+
+    void setClientSpans(ClientSpans clientSpans) {
+        this.clientSpans = clientSpans;
+    }
+
+    // Row of this transaction in its metrics series, or -1 if it has not been recorded yet
+    public long getStoreRow() {
+        return storeRow;
+    }
+
+    void setStoreRow(long storeRow) {
+        this.storeRow = storeRow;
+    }
+
+    // True only for the first call per metric, so each budget limit is evaluated once per transaction
+    boolean markMetricBudgetChecked(String metric) {
+        return budgetCheckedMetrics.add(metric);
+    }
+
+    boolean markNetworkBudgetChecked() {
+        return networkBudgetChecked.compareAndSet(false, true);
+    }
+
+    boolean markMetricsExported() {
+        return metricsExported.compareAndSet(false, true);
+    }
+
+    void addBudgetViolations(List<PerformanceBudgets.Violation> violations) {
+        budgetViolations.addAll(violations);
+    }
+
+    public List<PerformanceBudgets.Violation> getBudgetViolations() {
+        return new ArrayList<>(budgetViolations);
+    }
+
+    // Series key: transactions with the same key are compared with each other run over run
+    public String getSeriesKey() {
+        return String.join("|", transactionName, platform, nvProfile, captureLevel, deviceModel);
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionContext{transactionId=" + transactionId + ", series=" + getSeriesKey() + "}";
+    }
+}
@@ -0,0 +1,120 @@
+package advancedCommands.performanceTransaction.e2e.helpers;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a Performance Transaction as returned by /reporter/api/transactions/{id}.
+ *
+ * The response is fetched and parsed once; every property is then served from this object.
+ * Values are kept in the same string form that getPropertyFromPerformanceTransactionAPI returns.
+ */
+public final class TransactionMetrics {
+
+    private final String transactionId;
+    private final Map<String, String> properties;
+    private final long readyAfterMillis;
+
+    private TransactionMetrics(String transactionId, Map<String, String> properties, long readyAfterMillis) {
+        this.transactionId = transactionId;
+        this.properties = Collections.unmodifiableMap(properties);
+        this.readyAfterMillis = readyAfterMillis;
+    }
+
+    public static TransactionMetrics fromJson(String transactionId, String json) {
+        JSONObject jsonObject = new JSONObject(json);
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (String key : jsonObject.keySet()) {
+            Object value = jsonObject.get(key);
+            properties.put(key, value instanceof String ? (String) value : value.toString());
+        }
+        return new TransactionMetrics(transactionId, properties, -1);
+    }
+
+    public static TransactionMetrics empty(String transactionId) {
+        return new TransactionMetrics(transactionId, new LinkedHashMap<>(), -1);
+    }
+
+    // Copy of this snapshot recording how long the reporter took to make the metrics available
+    public TransactionMetrics withReadyAfterMillis(long readyAfterMillis) {
+        return new TransactionMetrics(transactionId, properties, readyAfterMillis);
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    // Returns "" for properties the API did not report, matching getPropertyFromPerformanceTransactionAPI
+    public String get(String property) {
+        return properties.getOrDefault(property, "");
+    }
+
+    public boolean has(String property) {
+        return properties.containsKey(property);
+    }
+
+    // True when every given property is present with a non-empty, non-null value
+    public boolean isPopulated(String... requiredProperties) {
+        for (String property : requiredProperties) {
+            String value = properties.get(property);
+            if (value == null || value.isEmpty() || "null".equals(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Milliseconds from the first readiness poll until the metrics were populated, or -1 if not polled / not ready
+    public long getReadyAfterMillis() {
+        return readyAfterMillis;
+    }
+
+    public Map<String, String> asMap() {
+        return properties;
+    }
+
+    public String getNetworkProfile() {
+        return get("networkProfile");
+    }
+
+    public String getCpuAvg() {
+        return get("cpuAvg");
+    }
+
+    public String getCpuMax() {
+        return get("cpuMax");
+    }
+
+    public String getMemAvg() {
+        return get("memAvg");
+    }
+
+    public String getMemMax() {
+        return get("memMax");
+    }
+
+    public String getBatteryAvg() {
+        return get("batteryAvg");
+    }
+
+    public String getBatteryMax() {
+        return get("batteryMax");
+    }
+
+    public String getDuration() {
+        return get("duration");
+    }
+
+    public String getSpeedIndex() {
+        return get("speedIndex");
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionMetrics{transactionId=" + transactionId + ", readyAfterMillis=" + readyAfterMillis
+                + ", properties=" + properties + "}";
+    }
+}
@@ -5,14 +5,20 @@ import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import org.testng.ITestResult;
 import org.testng.annotations.*;
 import org.openqa.selenium.By;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
+import utils.StepsGroupTracer;
+import utils.UploadResult;
 
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * End-to-End Performance Testing Flow for Android
@@ -34,14 +40,17 @@ public class E2EFlowAndroidTest {
     protected AndroidDriver driver = null;
     protected WebDriverWait wait;
     protected PerformanceHelpers helper;
-    private ApplicationUploadUtil uploadUtil;
+    private static CompletableFuture<UploadResult> upload;
+    private StepsGroupTracer tracer;
+
+    // Uploads the unmodified version of the application in the background while the classes before this one run
+    @BeforeSuite(alwaysRun = true)
+    public void startUpload() {
+        upload = new ApplicationUploadUtil().uploadUnmodifiedApplicationAsync();
+    }
 
     @BeforeClass
     public void setUp() throws MalformedURLException {
-        uploadUtil = new ApplicationUploadUtil();
-        // Upload the unmodified version of the application
-        uploadUtil.uploadUnmodifiedApplication();
-
         UiAutomator2Options options = new UiAutomator2Options()
                 .setApp("cloud:uniqueName=" + ApplicationUploadUtil.SEETEST_UNMODIFIED)
                 .setAppPackage("com.experitest.ExperiBank")
@@ -52,15 +61,35 @@ public class E2EFlowAndroidTest {
                 .amend("digitalai:testName", "EriBank E2E Payment Flow - Android")
                 .amend("digitalai:instrumentApp", true);
 
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        // The session needs the application to be present in the cloud
+        System.out.println("setUp() - Application upload: " + upload.join());
+        // Instrumented so PerformanceHelpers can time the driver commands of each transaction
+        driver = InstrumentedDrivers.newAndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
         wait = new WebDriverWait(driver, Duration.ofSeconds(10));
         helper = new PerformanceHelpers(driver);
     }
 
+    // Each transaction's steps group becomes a span with the driver commands inside it, written to reports/traces/
+    @BeforeMethod
+    public void startTrace(Method method) {
+        tracer = StepsGroupTracer.attach(driver, getClass().getSimpleName() + "." + method.getName());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void finishTrace(ITestResult result) {
+        if (tracer != null) {
+            // Queued report steps are sent first so they are part of the trace
+            helper.flushReporting();
+            tracer.finish(result.getThrowable());
+            tracer = null;
+        }
+    }
+
     @Test(priority = 1)
     @Parameters({"nvProfile", "captureLevel"})
     public void test_launch_of_application_response(@Optional("4G-average") String nvProfile,
                                                    @Optional("Application") String captureLevel) {
+        String transactionId = null;
         try {
             // Start a group that will contain the individual test steps until 'endGroupingOfSteps' is called
             helper.startGroupingOfSteps("Launch Application");
@@ -89,6 +118,10 @@ public class E2EFlowAndroidTest {
 
             // Add a custom step to the Automated Test Results with a link reference to the Performance Transaction Report
             helper.addReportStep(link);
+
+            // Once the reporter has aggregated the metrics, they are stored and checked against performance_budgets.json
+            transactionId = helper.getPropertyFromPerformanceTransactionReport(response, "transactionId");
+            helper.processTransaction(transactionId);
         } catch (Exception e) {
             System.out.println("Something went wrong in Launch Application test");
             e.printStackTrace();
@@ -97,12 +130,16 @@ public class E2EFlowAndroidTest {
         // Add custom properties that allow for easier filtering for the Automated Test Results
         helper.addPropertyForReporting("nvProfile", nvProfile);
         helper.addPropertyForReporting("captureLevel", captureLevel);
+
+        // Fails the test on budget violations when PERF_BUDGET_MODE=fail
+        helper.assertWithinBudget(transactionId);
     }
 
     @Test(priority = 2, dependsOnMethods = {"test_launch_of_application_response"})
     @Parameters({"nvProfile", "captureLevel"})
     public void test_login_response_time(@Optional("4G-average") String nvProfile,
                                        @Optional("Application") String captureLevel) {
+        String transactionId = null;
         try {
             helper.startGroupingOfSteps("Login Flow");
 
@@ -120,6 +157,15 @@ public class E2EFlowAndroidTest {
 
             String link = helper.getPropertyFromPerformanceTransactionReport(response, "link");
             helper.addReportStep(link);
+
+            // Once the reporter has aggregated the metrics, they are stored and checked against performance_budgets.json
+            transactionId = helper.getPropertyFromPerformanceTransactionReport(response, "transactionId");
+            helper.processTransaction(transactionId);
+
+            // Network calls of the transaction, also checked against maxNetworkCalls in performance_budgets.json
+            for (String harMetric : helper.extractHARFileMetrics(transactionId, "Login_Flow")) {
+                helper.addReportStep(harMetric);
+            }
         } catch (Exception e) {
             System.out.println("Something went wrong in Login test");
             e.printStackTrace();
@@ -127,12 +173,16 @@ public class E2EFlowAndroidTest {
 
         helper.addPropertyForReporting("nvProfile", nvProfile);
         helper.addPropertyForReporting("captureLevel", captureLevel);
+
+        // Fails the test on budget violations when PERF_BUDGET_MODE=fail
+        helper.assertWithinBudget(transactionId);
     }
 
     @Test(priority = 3, dependsOnMethods = {"test_login_response_time"})
     @Parameters({"nvProfile", "captureLevel"})
     public void test_payment_response_time(@Optional("4G-average") String nvProfile,
                                          @Optional("Application") String captureLevel) {
+        String transactionId = null;
         try {
             helper.startGroupingOfSteps("Payment Flow");
 
@@ -160,6 +210,15 @@ public class E2EFlowAndroidTest {
 
             String link = helper.getPropertyFromPerformanceTransactionReport(response, "link");
             helper.addReportStep(link);
+
+            // Once the reporter has aggregated the metrics, they are stored and checked against performance_budgets.json
+            transactionId = helper.getPropertyFromPerformanceTransactionReport(response, "transactionId");
+            helper.processTransaction(transactionId);
+
+            // Network calls of the transaction, also checked against maxNetworkCalls in performance_budgets.json
+            for (String harMetric : helper.extractHARFileMetrics(transactionId, "Payment_Flow")) {
+                helper.addReportStep(harMetric);
+            }
         } catch (Exception e) {
             System.out.println("Something went wrong in Payment test");
             e.printStackTrace();
@@ -167,12 +226,16 @@ public class E2EFlowAndroidTest {
 
         helper.addPropertyForReporting("nvProfile", nvProfile);
         helper.addPropertyForReporting("captureLevel", captureLevel);
+
+        // Fails the test on budget violations when PERF_BUDGET_MODE=fail
+        helper.assertWithinBudget(transactionId);
     }
 
     @Test(priority = 4, dependsOnMethods = {"test_payment_response_time"})
     @Parameters({"nvProfile", "captureLevel"})
     public void test_logout_response_time(@Optional("4G-average") String nvProfile,
                                         @Optional("Application") String captureLevel) {
+        String transactionId = null;
         try {
             helper.startGroupingOfSteps("Logout Flow");
 
@@ -187,6 +250,10 @@ public class E2EFlowAndroidTest {
 
             String link = helper.getPropertyFromPerformanceTransactionReport(response, "link");
             helper.addReportStep(link);
+
+            // Once the reporter has aggregated the metrics, they are stored and checked against performance_budgets.json
+            transactionId = helper.getPropertyFromPerformanceTransactionReport(response, "transactionId");
+            helper.processTransaction(transactionId);
         } catch (Exception e) {
             System.out.println("Something went wrong in Logout test");
             e.printStackTrace();
@@ -194,10 +261,17 @@ public class E2EFlowAndroidTest {
 
         helper.addPropertyForReporting("nvProfile", nvProfile);
         helper.addPropertyForReporting("captureLevel", captureLevel);
+
+        // Fails the test on budget violations when PERF_BUDGET_MODE=fail
+        helper.assertWithinBudget(transactionId);
     }
 
     @AfterClass(alwaysRun = true)
     public void tearDown() {
+        // Report steps and properties are sent in the background; make sure they reach the report first
+        if (helper != null) {
+            helper.flushReporting();
+        }
         if (driver != null) {
             driver.quit();
         }
@@ -1,6 +1,7 @@
 package advancedCommands.performanceTransaction.e2e.tests;
 
 import advancedCommands.performanceTransaction.e2e.helpers.PerformanceHelpers;
+import advancedCommands.performanceTransaction.e2e.helpers.TransactionMetrics;
 import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.ios.options.XCUITestOptions;
 import org.openqa.selenium.By;
@@ -9,6 +10,7 @@ import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.annotations.*;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -50,7 +52,8 @@ public class LaunchApplicationIOSTest {
                 .amend("digitalai:testName", "Launch Application Performance Test - iOS")
                 .amend("digitalai:autoAcceptAlerts", true);
 
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        // Instrumented so PerformanceHelpers can time the driver commands of each transaction
+        driver = InstrumentedDrivers.newIOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
         wait = new WebDriverWait(driver, Duration.ofSeconds(10));
         helper = new PerformanceHelpers(driver);
     }
@@ -60,6 +63,7 @@ public class LaunchApplicationIOSTest {
     public void test_launch_of_application_response(@Optional("4G-average") String nvProfile,
                                                    @Optional("Application") String captureLevel) {
 
+        TransactionMetrics metrics = null;
         try {
             // Start a group that will contain the individual test steps until 'endGroupingOfSteps' is called
             helper.startGroupingOfSteps("Launch Application Performance");
@@ -81,17 +85,16 @@ public class LaunchApplicationIOSTest {
             // Extract relevant properties from the Performance Transaction Response
             String transactionId = helper.getPropertyFromPerformanceTransactionReport(response, "transactionId");
 
-            // Waiting few seconds to allow next API call to have some time for the data to accumulate after Transaction ends
-            Thread.sleep(5000);
-
-            // Extract relevant properties from the Performance Transaction API Response
-            speedIndex = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "speedIndex");
-            cpuAvg = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "cpuAvg");
-            cpuMax = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "cpuMax");
-            memAvg = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "memAvg");
-            memMax = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "memMax");
-            batteryAvg = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "batteryAvg");
-            batteryMax = helper.getPropertyFromPerformanceTransactionAPI(transactionId, "batteryMax");
+            // Wait until the reporter has aggregated the metrics for the Transaction, store and check them, then extract the relevant properties
+            metrics = helper.processTransaction(transactionId,
+                    "speedIndex", "cpuAvg", "cpuMax", "memAvg", "memMax", "batteryAvg", "batteryMax");
+            speedIndex = metrics.getSpeedIndex();
+            cpuAvg = metrics.getCpuAvg();
+            cpuMax = metrics.getCpuMax();
+            memAvg = metrics.getMemAvg();
+            memMax = metrics.getMemMax();
+            batteryAvg = metrics.getBatteryAvg();
+            batteryMax = metrics.getBatteryMax();
 
             // Add a custom step to the Automated Test Results with a link reference to the Performance Transaction Report
             helper.addReportStep(link);
@@ -111,10 +114,21 @@ public class LaunchApplicationIOSTest {
         helper.addPropertyForReporting("memMax", memMax);
         helper.addPropertyForReporting("batteryAvg", batteryAvg);
         helper.addPropertyForReporting("batteryMax", batteryMax);
+
+        // Compare with earlier runs of this transaction stored under reports/perf-metrics/
+        if (metrics != null) {
+            helper.checkForRegressions(metrics);
+            // Fails the test on budget violations when PERF_BUDGET_MODE=fail
+            helper.assertWithinBudget(metrics.getTransactionId());
+        }
     }
 
     @AfterMethod(alwaysRun = true)
     public void tearDown() {
+        // Report steps and properties are sent in the background; make sure they reach the report first
+        if (helper != null) {
+            helper.flushReporting();
+        }
         if (driver != null) {
             driver.quit();
         }
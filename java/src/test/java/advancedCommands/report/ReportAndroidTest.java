@@ -3,12 +3,12 @@ package advancedCommands.report;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.SessionPool;
 
 /**
  * Adds a step to the generated report
@@ -33,7 +33,7 @@ public class ReportAndroidTest {
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "Report test on Android device");
 
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPool.leaseAndroidDriver(options);
     }
 
     @Test
@@ -51,7 +51,7 @@ public class ReportAndroidTest {
     public void tearDown() {
         
         if (driver != null) {
-            driver.quit();
+            SessionPool.release(driver);
         }
     }
 
@@ -3,12 +3,12 @@ package advancedCommands.report;
 import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.ios.options.XCUITestOptions;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.SessionPool;
 
 /**
  * Adds a step to the generated report
@@ -31,7 +31,7 @@ public class ReportIOSTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getIOSDeviceQuery())
                 .amend("digitalai:testName", "Report test on iOS device");
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPool.leaseIOSDriver(options);
     }
 
     @Test
@@ -49,7 +49,7 @@ public class ReportIOSTest {
     public void tearDown() {
         
         if (driver != null) {
-            driver.quit();
+            SessionPool.release(driver);
         }
     }
 
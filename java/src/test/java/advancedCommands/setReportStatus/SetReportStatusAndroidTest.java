@@ -3,12 +3,12 @@ package advancedCommands.setReportStatus;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.SessionPreProvisioner;
 
 /**
  * Overrides the final report status
@@ -32,7 +32,9 @@ public class SetReportStatusAndroidTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "Set Report status test on Android device");
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPreProvisioner.takeAndroidDriver(options);
+        // Open the session for the next test method while this one runs
+        SessionPreProvisioner.prewarmAndroidDriver(options);
     }
 
     @Test
@@ -3,12 +3,12 @@ package advancedCommands.setReportStatus;
 import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.ios.options.XCUITestOptions;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.SessionPreProvisioner;
 
 /**
  * Overrides the final report status
@@ -31,7 +31,9 @@ public class SetReportStatusIOSTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getIOSDeviceQuery())
                 .amend("digitalai:testName", "Set Report status test on iOS device");
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPreProvisioner.takeIOSDriver(options);
+        // Open the session for the next test method while this one runs
+        SessionPreProvisioner.prewarmIOSDriver(options);
     }
 
     @Test
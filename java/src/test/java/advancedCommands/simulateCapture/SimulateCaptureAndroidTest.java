@@ -4,13 +4,13 @@ import io.appium.java_client.AppiumBy;
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import utils.EnvironmentConfig;
+import utils.SessionPool;
 
 /**
  * The command allows users to test applications that use the camera on a mobile device.
@@ -34,7 +34,7 @@ public class SimulateCaptureAndroidTest {
                 .amend("digitalai:testName", "Run simulate capture test on Android device")
                 .amend("digitalai:instrumentApp", true)
                 .amend("autoGrantPermissions", true);
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPool.leaseAndroidDriver(options);
     }
 
     private void runSimulateCapture(boolean fromURL) throws InterruptedException {
@@ -71,7 +71,7 @@ public class SimulateCaptureAndroidTest {
     public void tearDown() {
         
         if (driver != null) {
-            driver.quit();
+            SessionPool.release(driver);
         }
     }
 }
@@ -4,11 +4,11 @@ import io.appium.java_client.AppiumBy;
 import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.ios.options.XCUITestOptions;
 import java.net.MalformedURLException;
-import java.net.URL;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import utils.EnvironmentConfig;
+import utils.SessionPool;
 
 /**
  * The command allows users to test applications that use the camera on a mobile device.
@@ -31,7 +31,7 @@ public class SimulateCaptureIOSTest {
                 .amend("digitalai:testName", "Run simulate capture test on iOS device")
                 .amend("digitalai:instrumentApp", true)
                 .amend("autoGrantPermissions", true);
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPool.leaseIOSDriver(options);
     }
 
     private void runSimulateCapture(boolean fromURL) throws InterruptedException {
@@ -62,7 +62,7 @@ public class SimulateCaptureIOSTest {
     public void tearDown() {
         
         if (driver != null) {
-            driver.quit();
+            SessionPool.release(driver);
         }
     }
 }
@@ -2,8 +2,9 @@ package advancedCommands.startStopStepsGroup;
 
 import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
-import java.net.URL;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -11,6 +12,8 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.ScreenOrientation;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.SessionPool;
+import utils.StepsGroupTracer;
 
 /**
  * StartStepsGroup begins a group marks (and StopStepsGroup ends it).
@@ -20,9 +23,10 @@ public class StartStopStepsGroupAndroidTest {
     
     private AndroidDriver driver = null;
     private ApplicationUploadUtil uploadUtil;
+    private StepsGroupTracer tracer;
 
     @BeforeMethod
-    public void before() throws MalformedURLException {
+    public void before(Method method) throws MalformedURLException {
         uploadUtil = new ApplicationUploadUtil();
         // Upload the unmodified version of the application
         uploadUtil.uploadUnmodifiedApplication();
@@ -35,7 +39,10 @@ public class StartStopStepsGroupAndroidTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "Start and stop steps group test on Android device");
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPool.leaseAndroidDriver(options);
+
+        // Each steps group becomes a span with the driver commands inside it, written to reports/traces/
+        tracer = StepsGroupTracer.attach(driver, getClass().getSimpleName() + "." + method.getName());
     }
 
     @Test
@@ -75,10 +82,12 @@ public class StartStopStepsGroupAndroidTest {
     }
 
     @AfterMethod
-    public void tearDown() {
-        
+    public void tearDown(ITestResult result) {
+        if (tracer != null) {
+            tracer.finish(result.getThrowable());
+        }
         if (driver != null) {
-            driver.quit();
+            SessionPool.release(driver);
         }
     }
 
@@ -2,8 +2,9 @@ package advancedCommands.startStopStepsGroup;
 
 import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.ios.options.XCUITestOptions;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
-import java.net.URL;
+import org.testng.ITestResult;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -11,6 +12,8 @@ import org.openqa.selenium.By;
 import org.openqa.selenium.ScreenOrientation;
 import utils.ApplicationUploadUtil;
 import utils.EnvironmentConfig;
+import utils.SessionPool;
+import utils.StepsGroupTracer;
 
 /**
  * StartStepsGroup begins a group marks (and StopStepsGroup ends it).
@@ -20,9 +23,10 @@ public class StartStopStepsGroupIOSTest {
     
     private IOSDriver driver = null;
     private ApplicationUploadUtil uploadUtil;
+    private StepsGroupTracer tracer;
 
     @BeforeMethod
-    public void before() throws MalformedURLException {
+    public void before(Method method) throws MalformedURLException {
         uploadUtil = new ApplicationUploadUtil();
         // Upload the unmodified version of the application
         uploadUtil.uploadUnmodifiedApplication();
@@ -34,7 +38,10 @@ public class StartStopStepsGroupIOSTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getIOSDeviceQuery())
                 .amend("digitalai:testName", "Start and stop steps group test on iOS device");
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = SessionPool.leaseIOSDriver(options);
+
+        // Each steps group becomes a span with the driver commands inside it, written to reports/traces/
+        tracer = StepsGroupTracer.attach(driver, getClass().getSimpleName() + "." + method.getName());
     }
 
     @Test
@@ -76,10 +83,12 @@ public class StartStopStepsGroupIOSTest {
     }
 
     @AfterMethod
-    public void tearDown() {
-        
+    public void tearDown(ITestResult result) {
+        if (tracer != null) {
+            tracer.finish(result.getThrowable());
+        }
         if (driver != null) {
-            driver.quit();
+            SessionPool.release(driver);
         }
     }
 
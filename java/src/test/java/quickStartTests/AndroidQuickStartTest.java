@@ -4,13 +4,16 @@ import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.android.options.UiAutomator2Options;
 import java.net.MalformedURLException;
 import java.net.URL;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.openqa.selenium.By;
 import org.openqa.selenium.ScreenOrientation;
 import utils.ApplicationUploadUtil;
+import utils.CommandLatencyListener;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 
 public class AndroidQuickStartTest {
@@ -33,7 +36,10 @@ public class AndroidQuickStartTest {
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getAndroidDeviceQuery())
                 .amend("digitalai:testName", "Run Quickstart test on Android device");
-        driver = new AndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = InstrumentedDrivers.newAndroidDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+
+        // Collect per-command latencies of this class, dumped to reports/command-latency/ after the last test
+        CommandLatencyListener.forTestClass(getClass()).attach(driver);
     }
 
     @Test
@@ -58,4 +64,9 @@ public class AndroidQuickStartTest {
         }
     }
 
+    @AfterClass
+    public void dumpCommandLatency() {
+        CommandLatencyListener.forTestClass(getClass()).dump();
+    }
+
 }
@@ -4,13 +4,16 @@ import io.appium.java_client.ios.IOSDriver;
 import io.appium.java_client.ios.options.XCUITestOptions;
 import java.net.MalformedURLException;
 import java.net.URL;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.openqa.selenium.By;
 import org.openqa.selenium.ScreenOrientation;
 import utils.ApplicationUploadUtil;
+import utils.CommandLatencyListener;
 import utils.EnvironmentConfig;
+import utils.InstrumentedDrivers;
 
 
 public class IOSQuickStartTest {
@@ -32,7 +35,10 @@ public class IOSQuickStartTest {
                 .amend("digitalai:accessKey", EnvironmentConfig.getAccessKey())
                 .amend("digitalai:appiumVersion", EnvironmentConfig.getAppiumVersion())
                 .amend("digitalai:deviceQuery", EnvironmentConfig.getIOSDeviceQuery());
-        driver = new IOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+        driver = InstrumentedDrivers.newIOSDriver(new URL(EnvironmentConfig.getCloudUrl()), options);
+
+        // Collect per-command latencies of this class, dumped to reports/command-latency/ after the last test
+        CommandLatencyListener.forTestClass(getClass()).attach(driver);
     }
 
     @Test
@@ -58,4 +64,9 @@ public class IOSQuickStartTest {
         }
     }
 
+    @AfterClass
+    public void dumpCommandLatency() {
+        CommandLatencyListener.forTestClass(getClass()).dump();
+    }
+
 }
@@ -0,0 +1,158 @@
+package utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import utils.AccessibilityDiff.Issue;
+import utils.AccessibilityViolations.Violation;
+
+/**
+ * Gates accessibility scans on a stored baseline of known violations.
+ *
+ * Baselines are JSON files in ACCESSIBILITY_BASELINE_DIR (src/test/resources/accessibility-baselines by default),
+ * one per platform and scan name, meant to be committed with the tests. Each scan is diffed against its baseline
+ * (see AccessibilityDiff) and only the added violations need review. ACCESSIBILITY_BASELINE_MODE selects what
+ * happens: off, report (print the diff, the default), fail (also fail the test when violations were added) or
+ * update (replace the baseline with the scan). Baselines are only written in update mode; without one, report mode
+ * prints that the scan has no baseline and fail mode fails the test. The latest diff of each scan is kept in
+ * reports/accessibility/diffs through the {@link ArtifactStore}.
+ */
+public class AccessibilityBaseline {
+
+    private static final Path DIFFS_DIR = Paths.get("reports", "accessibility", "diffs");
+    private static final int MAX_PRINTED_ISSUES = 20;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AccessibilityBaseline() {}
+
+    // Diffs the scan against its baseline; returns null when ACCESSIBILITY_BASELINE_MODE=off or the scan has no baseline
+    public static AccessibilityDiff.Result check(Object scanResults, String platform, String scanName) {
+        String mode = EnvironmentConfig.getAccessibilityBaselineMode();
+        if ("off".equals(mode)) {
+            return null;
+        }
+
+        List<Violation> current = AccessibilityViolations.extract(scanResults, platform);
+        Path baselineFile = baselineFile(platform, scanName);
+        try {
+            if (!Files.exists(baselineFile)) {
+                if ("update".equals(mode)) {
+                    write(baselineFile, platform, scanName, current);
+                    System.out.println("AccessibilityBaseline - No baseline for " + scanName + ", saved "
+                            + AccessibilityDiff.dedupe(current).size() + " known violations to " + baselineFile);
+                    return AccessibilityDiff.diff(current, current);
+                }
+                String message = "No accessibility baseline for " + scanName + " at " + baselineFile
+                        + ", run with ACCESSIBILITY_BASELINE_MODE=update to create it";
+                if ("fail".equals(mode)) {
+                    throw new AssertionError(message);
+                }
+                System.out.println("AccessibilityBaseline - " + message);
+                return null;
+            }
+
+            AccessibilityDiff.Result result = AccessibilityDiff.diff(read(baselineFile), current);
+            Path diffFile = writeDiff(platform, scanName, result);
+            System.out.println("AccessibilityBaseline - " + scanName + " compared with " + baselineFile + ": " + result);
+            print("Added", result.getAdded());
+            print("Removed", result.getRemoved());
+            System.out.println("  Diff: " + diffFile);
+
+            if ("update".equals(mode)) {
+                write(baselineFile, platform, scanName, current);
+                System.out.println("AccessibilityBaseline - Baseline " + baselineFile + " updated");
+            } else if ("fail".equals(mode) && result.hasAdded()) {
+                throw new AssertionError(result.getAdded().size() + " accessibility violations added in " + scanName
+                        + " since the baseline " + baselineFile + ": " + result.getAdded());
+            }
+            return result;
+        } catch (IOException e) {
+            System.err.println("AccessibilityBaseline - Could not compare " + scanName + " with its baseline: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static Path baselineFile(String platform, String scanName) {
+        String name = (platform.toLowerCase() + "-" + scanName).replaceAll("[^A-Za-z0-9._-]+", "_");
+        return Paths.get(EnvironmentConfig.getAccessibilityBaselineDir()).resolve(name + ".json");
+    }
+
+    static List<Violation> read(Path file) throws IOException {
+        List<Violation> violations = new ArrayList<>();
+        for (JsonNode issue : objectMapper.readTree(file.toFile()).path("issues")) {
+            Violation violation = Violation.fromJson(issue);
+            int occurrences = Math.max(issue.path("occurrences").asInt(1), 1);
+            for (int i = 0; i < occurrences; i++) {
+                violations.add(violation);
+            }
+        }
+        return violations;
+    }
+
+    // Issues are sorted so that baseline updates diff cleanly in version control
+    private static void write(Path file, String platform, String scanName, List<Violation> violations) throws IOException {
+        List<Issue> issues = new ArrayList<>(AccessibilityDiff.dedupe(violations).values());
+        issues.sort(Comparator.comparing((Issue issue) -> issue.getViolation().getRuleId()).thenComparing(Issue::getFingerprint));
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("platform", platform);
+        json.put("scanName", scanName);
+        json.put("updated", Instant.now().toString());
+        json.set("issues", toJson(issues));
+
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), json);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // One diff per scan, replaced by every run
+    private static Path writeDiff(String platform, String scanName, AccessibilityDiff.Result result) throws IOException {
+        String name = (platform.toLowerCase() + "-" + scanName).replaceAll("[^A-Za-z0-9._-]+", "_") + ".json";
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("platform", platform);
+        json.put("scanName", scanName);
+        json.put("compared", Instant.now().toString());
+        json.set("added", toJson(result.getAdded()));
+        json.set("removed", toJson(result.getRemoved()));
+        json.set("unchanged", toJson(result.getUnchanged()));
+
+        try (ArtifactStore.Output out = ArtifactStore.forDirectory(DIFFS_DIR).create(name)) {
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .writeValue(out, json);
+            return out.commit();
+        }
+    }
+
+    private static ArrayNode toJson(List<Issue> issues) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (Issue issue : issues) {
+            array.add(issue.getViolation().toJson().put("occurrences", issue.getOccurrences()));
+        }
+        return array;
+    }
+
+    private static void print(String label, List<Issue> issues) {
+        for (int i = 0; i < issues.size() && i < MAX_PRINTED_ISSUES; i++) {
+            System.out.println("  " + label + ": " + issues.get(i));
+        }
+        if (issues.size() > MAX_PRINTED_ISSUES) {
+            System.out.println("  " + label + ": ... and " + (issues.size() - MAX_PRINTED_ISSUES) + " more");
+        }
+    }
+}
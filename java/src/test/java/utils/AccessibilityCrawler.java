@@ -0,0 +1,176 @@
+package utils;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.InteractsWithApps;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs mobile: axeScan on a declared list of screens, spread over several concurrent sessions.
+ *
+ * Each session takes the next screen from a shared queue, restarts the application, navigates to the screen
+ * and scans it, until the queue is empty. Faster devices simply take more screens. A session that cannot be
+ * created leaves its share to the others, so the crawl completes as long as one device is available.
+ */
+public class AccessibilityCrawler {
+
+    /**
+     * Steps that bring a freshly started application to a screen.
+     */
+    public interface Navigation {
+        void navigate(AppiumDriver driver);
+    }
+
+    private final Callable<AppiumDriver> sessionFactory;
+    private final String appId;
+    private final int sessions;
+
+    // sessionFactory opens a new session with the application under test; appId is its package or bundle id
+    public AccessibilityCrawler(Callable<AppiumDriver> sessionFactory, String appId, int sessions) {
+        this.sessionFactory = sessionFactory;
+        this.appId = appId;
+        this.sessions = Math.max(1, sessions);
+    }
+
+    public static Screen screen(String name, Navigation navigation) {
+        return new Screen(name, navigation);
+    }
+
+    public CrawlResult crawl(List<Screen> screens) throws InterruptedException {
+        ConcurrentLinkedQueue<Screen> queue = new ConcurrentLinkedQueue<>(screens);
+        Map<String, Object> scans = new ConcurrentHashMap<>();
+        Map<String, String> failures = new ConcurrentHashMap<>();
+        int workers = Math.min(sessions, screens.size());
+        System.out.println("AccessibilityCrawler - Scanning " + screens.size() + " screens with " + workers + " sessions");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(workers, 1), runnable -> {
+            Thread thread = new Thread(runnable, "accessibility-crawl-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> scanScreens(queue, scans, failures)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    System.err.println("AccessibilityCrawler - Crawl session failed: " + e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Screens left in the queue had no session to run on
+        for (Screen screen : queue) {
+            failures.put(screen.name, "No session available to scan the screen");
+        }
+
+        // Keep the declared order of the screens
+        Map<String, Object> orderedScans = new LinkedHashMap<>();
+        Map<String, String> orderedFailures = new LinkedHashMap<>();
+        for (Screen screen : screens) {
+            if (scans.containsKey(screen.name)) {
+                orderedScans.put(screen.name, scans.get(screen.name));
+            } else {
+                orderedFailures.put(screen.name, failures.getOrDefault(screen.name, "Not scanned"));
+            }
+        }
+        return new CrawlResult(orderedScans, orderedFailures);
+    }
+
+    private void scanScreens(ConcurrentLinkedQueue<Screen> queue, Map<String, Object> scans, Map<String, String> failures) {
+        AppiumDriver driver;
+        try {
+            driver = sessionFactory.call();
+        } catch (Exception e) {
+            System.err.println("AccessibilityCrawler - Could not open a crawl session: " + e.getMessage());
+            return;
+        }
+
+        try {
+            Screen screen;
+            while ((screen = queue.poll()) != null) {
+                long start = System.nanoTime();
+                try {
+                    InteractsWithApps apps = (InteractsWithApps) driver;
+                    apps.terminateApp(appId);
+                    apps.activateApp(appId);
+                    screen.navigation.navigate(driver);
+
+                    Map<String, Object> settings = new LinkedHashMap<>();
+                    settings.put("apiKey", EnvironmentConfig.getAxeDevToolsApiKey());
+                    Object scan = driver.executeScript("mobile: axeScan", settings);
+                    if (scan == null) {
+                        throw new IllegalStateException("mobile: axeScan returned no results");
+                    }
+                    scans.put(screen.name, scan);
+                    System.out.println("AccessibilityCrawler - Scanned " + screen.name + " on session " + driver.getSessionId()
+                            + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                } catch (Exception e) {
+                    System.err.println("AccessibilityCrawler - Could not scan " + screen.name + ": " + e.getMessage());
+                    failures.put(screen.name, String.valueOf(e.getMessage()));
+                }
+            }
+        } finally {
+            try {
+                driver.quit();
+            } catch (Exception e) {
+                System.err.println("AccessibilityCrawler - Could not close crawl session: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A screen of the crawl.
+     */
+    public static class Screen {
+        private final String name;
+        private final Navigation navigation;
+
+        private Screen(String name, Navigation navigation) {
+            this.name = name;
+            this.navigation = navigation;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * The scan results of each screen, in the declared order, and the error of each screen that could not be scanned.
+     */
+    public static class CrawlResult {
+        private final Map<String, Object> scans;
+        private final Map<String, String> failures;
+
+        CrawlResult(Map<String, Object> scans, Map<String, String> failures) {
+            this.scans = Collections.unmodifiableMap(scans);
+            this.failures = Collections.unmodifiableMap(failures);
+        }
+
+        public Map<String, Object> getScans() {
+            return scans;
+        }
+
+        public Map<String, String> getFailures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import utils.AccessibilityViolations.Violation;
+
+/**
+ * Compares the violations of a scan with a baseline by element fingerprint.
+ *
+ * Violations with the same fingerprint are deduplicated first, so an element that fails a rule on several
+ * screens is one issue with several occurrences. Both sides are indexed in a hash map once, so the diff is
+ * linear in the size of the scan and the baseline.
+ */
+public final class AccessibilityDiff {
+
+    private AccessibilityDiff() {}
+
+    public static Result diff(List<Violation> baseline, List<Violation> current) {
+        Map<String, Issue> baselineIssues = dedupe(baseline);
+        Map<String, Issue> currentIssues = dedupe(current);
+
+        List<Issue> added = new ArrayList<>();
+        List<Issue> unchanged = new ArrayList<>();
+        for (Issue issue : currentIssues.values()) {
+            (baselineIssues.containsKey(issue.getFingerprint()) ? unchanged : added).add(issue);
+        }
+        List<Issue> removed = new ArrayList<>();
+        for (Issue issue : baselineIssues.values()) {
+            if (!currentIssues.containsKey(issue.getFingerprint())) {
+                removed.add(issue);
+            }
+        }
+        return new Result(added, removed, unchanged);
+    }
+
+    // One issue per fingerprint, in the order first seen
+    public static Map<String, Issue> dedupe(List<Violation> violations) {
+        Map<String, Issue> issues = new LinkedHashMap<>();
+        for (Violation violation : violations) {
+            Issue issue = issues.get(violation.getFingerprint());
+            if (issue == null) {
+                issues.put(violation.getFingerprint(), new Issue(violation));
+            } else {
+                issue.occurrences++;
+            }
+        }
+        return issues;
+    }
+
+    /**
+     * A deduplicated violation with the number of times it was reported.
+     */
+    public static class Issue {
+        private final Violation violation;
+        private int occurrences = 1;
+
+        private Issue(Violation violation) {
+            this.violation = violation;
+        }
+
+        public Violation getViolation() {
+            return violation;
+        }
+
+        public String getFingerprint() {
+            return violation.getFingerprint();
+        }
+
+        public int getOccurrences() {
+            return occurrences;
+        }
+
+        @Override
+        public String toString() {
+            return occurrences > 1 ? violation + " x" + occurrences : violation.toString();
+        }
+    }
+
+    /**
+     * Issues only in the scan (added), only in the baseline (removed) and in both (unchanged).
+     */
+    public static class Result {
+        private final List<Issue> added;
+        private final List<Issue> removed;
+        private final List<Issue> unchanged;
+
+        Result(List<Issue> added, List<Issue> removed, List<Issue> unchanged) {
+            this.added = Collections.unmodifiableList(added);
+            this.removed = Collections.unmodifiableList(removed);
+            this.unchanged = Collections.unmodifiableList(unchanged);
+        }
+
+        public List<Issue> getAdded() {
+            return added;
+        }
+
+        public List<Issue> getRemoved() {
+            return removed;
+        }
+
+        public List<Issue> getUnchanged() {
+            return unchanged;
+        }
+
+        public boolean hasAdded() {
+            return !added.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return added.size() + " added, " + removed.size() + " removed, " + unchanged.size() + " unchanged";
+        }
+    }
+}
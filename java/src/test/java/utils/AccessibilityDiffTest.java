@@ -0,0 +1,75 @@
+package utils;
+
+import org.testng.annotations.Test;
+import utils.AccessibilityViolations.Violation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Unit tests of the deduplication and baseline diff of {@link AccessibilityDiff}.
+ */
+public class AccessibilityDiffTest {
+
+    @Test
+    public void dedupeCountsOccurrencesInFirstSeenOrder() {
+        Map<String, AccessibilityDiff.Issue> issues = AccessibilityDiff.dedupe(Arrays.asList(
+                violation("b"), violation("a"), violation("b"), violation("b")));
+
+        assertEquals(new ArrayList<>(issues.keySet()), Arrays.asList("b", "a"));
+        assertEquals(issues.get("b").getOccurrences(), 3);
+        assertEquals(issues.get("a").getOccurrences(), 1);
+    }
+
+    @Test
+    public void diffSplitsAddedRemovedAndUnchanged() {
+        AccessibilityDiff.Result result = AccessibilityDiff.diff(
+                Arrays.asList(violation("kept"), violation("fixed")),
+                Arrays.asList(violation("kept"), violation("new"), violation("new")));
+
+        assertEquals(fingerprints(result.getAdded()), Collections.singletonList("new"));
+        assertEquals(result.getAdded().get(0).getOccurrences(), 2);
+        assertEquals(fingerprints(result.getRemoved()), Collections.singletonList("fixed"));
+        assertEquals(fingerprints(result.getUnchanged()), Collections.singletonList("kept"));
+        assertTrue(result.hasAdded());
+        assertEquals(result.toString(), "1 added, 1 removed, 1 unchanged");
+    }
+
+    @Test
+    public void repeatedViolationOnSeveralScreensIsNotAdded() {
+        // The same element failing on more screens than in the baseline is still one known issue
+        AccessibilityDiff.Result result = AccessibilityDiff.diff(
+                Collections.singletonList(violation("header")),
+                Arrays.asList(violation("header"), violation("header"), violation("header")));
+
+        assertFalse(result.hasAdded());
+        assertEquals(result.getUnchanged().get(0).getOccurrences(), 3);
+    }
+
+    @Test
+    public void emptyBaselineAddsEverything() {
+        AccessibilityDiff.Result result = AccessibilityDiff.diff(Collections.emptyList(), Arrays.asList(violation("a"), violation("b")));
+
+        assertEquals(fingerprints(result.getAdded()), Arrays.asList("a", "b"));
+        assertTrue(result.getRemoved().isEmpty());
+    }
+
+    private static Violation violation(String fingerprint) {
+        return new Violation("ColorContrast", "SERIOUS", fingerprint, "className=android.widget.Button");
+    }
+
+    private static List<String> fingerprints(List<AccessibilityDiff.Issue> issues) {
+        List<String> fingerprints = new ArrayList<>();
+        for (AccessibilityDiff.Issue issue : issues) {
+            fingerprints.add(issue.getFingerprint());
+        }
+        return fingerprints;
+    }
+}
@@ -0,0 +1,353 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import utils.AccessibilityViolations.Violation;
+
+/**
+ * Index of the accessibility scans saved under reports/accessibility/, maintained incrementally on every save.
+ *
+ * The index directory holds:
+ *  - scans.jsonl: one line per scan (platform, scan name, timestamp, report file, violation counts), appended
+ *  - rules.json: violation and scan counts per rule across all scans, rewritten from its previous content
+ *  - series/&lt;scan&gt;/latest.jsonl and previous.jsonl: the violations of the last two scans of each
+ *    platform and scan name, the previous one being replaced by a rename
+ * Recording a scan only reads and writes what the scan touches, never the other scans, so it costs the same
+ * after thousands of scans. Updates are serialized with a file lock so parallel Gradle forks can share the index.
+ */
+public class AccessibilityIndex {
+
+    private static final Path INDEX_DIR = Paths.get("reports", "accessibility", "index");
+    private static final String LATEST = "latest.jsonl";
+    private static final String PREVIOUS = "previous.jsonl";
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AccessibilityIndex() {}
+
+    // Adds a scan to the index and returns its record, including how many violations are new since the last scan
+    public static ScanRecord record(String platform, String scanName, long timestampMillis, String reportFile,
+                                    List<Violation> violations) throws IOException {
+        Path seriesDir = seriesDirectory(platform, scanName);
+        synchronized (AccessibilityIndex.class) {
+            Files.createDirectories(seriesDir);
+            try (FileChannel lockChannel = FileChannel.open(INDEX_DIR.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                writeSeriesDescriptor(seriesDir, platform, scanName);
+
+                Set<String> previousFingerprints = fingerprints(readViolations(seriesDir.resolve(LATEST)));
+                Set<String> currentFingerprints = fingerprints(violations);
+                int newViolations = 0;
+                for (String fingerprint : currentFingerprints) {
+                    if (!previousFingerprints.contains(fingerprint)) {
+                        newViolations++;
+                    }
+                }
+                int fixedViolations = 0;
+                for (String fingerprint : previousFingerprints) {
+                    if (!currentFingerprints.contains(fingerprint)) {
+                        fixedViolations++;
+                    }
+                }
+
+                rotateLatest(seriesDir, violations);
+                updateRuleCounts(violations, timestampMillis);
+
+                ScanRecord scan = new ScanRecord(platform, scanName, timestampMillis, reportFile, violations.size(),
+                        newViolations, fixedViolations, AccessibilityViolations.countByImpact(violations));
+                appendLine(INDEX_DIR.resolve("scans.jsonl"), scan.toJson());
+                return scan;
+            }
+        }
+    }
+
+    // Violations of the last scan of this platform and scan name that were not in the scan before it.
+    // Every violation is new after the first scan; empty if the scan was never recorded.
+    public static List<Violation> newViolationsSinceLastRun(String platform, String scanName) throws IOException {
+        Path seriesDir = seriesDirectory(platform, scanName);
+        Set<String> previousFingerprints = fingerprints(readViolations(seriesDir.resolve(PREVIOUS)));
+        List<Violation> newViolations = new ArrayList<>();
+        for (Violation violation : readViolations(seriesDir.resolve(LATEST))) {
+            if (!previousFingerprints.contains(violation.getFingerprint())) {
+                newViolations.add(violation);
+            }
+        }
+        return newViolations;
+    }
+
+    // Violations of the last scan of this platform and scan name
+    public static List<Violation> latestViolations(String platform, String scanName) throws IOException {
+        return readViolations(seriesDirectory(platform, scanName).resolve(LATEST));
+    }
+
+    // Rules with the most violations across every indexed scan, most violations first
+    public static List<RuleCount> topRules(int limit) throws IOException {
+        List<RuleCount> rules = new ArrayList<>(readRuleCounts().values());
+        rules.sort((a, b) -> a.violations != b.violations
+                ? Long.compare(b.violations, a.violations)
+                : a.ruleId.compareTo(b.ruleId));
+        return rules.size() > limit ? new ArrayList<>(rules.subList(0, limit)) : rules;
+    }
+
+    private static void rotateLatest(Path seriesDir, List<Violation> violations) throws IOException {
+        Path latest = seriesDir.resolve(LATEST);
+        if (Files.exists(latest)) {
+            Files.move(latest, seriesDir.resolve(PREVIOUS), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Path temp = seriesDir.resolve(LATEST + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Violation violation : violations) {
+                writer.write(objectMapper.writeValueAsString(violation.toJson()));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, latest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // rules.json grows with the number of distinct rules, not with the number of scans
+    private static void updateRuleCounts(List<Violation> violations, long timestampMillis) throws IOException {
+        Map<String, RuleCount> rules = readRuleCounts();
+        Set<String> rulesInScan = new HashSet<>();
+        for (Violation violation : violations) {
+            RuleCount rule = rules.computeIfAbsent(violation.getRuleId(), RuleCount::new);
+            rule.violations++;
+            rule.impact = rule.impact == null ? violation.getImpact() : AccessibilityViolations.mostSevere(rule.impact, violation.getImpact());
+            rule.lastSeenMillis = timestampMillis;
+            if (rulesInScan.add(violation.getRuleId())) {
+                rule.scans++;
+            }
+        }
+        if (rulesInScan.isEmpty()) {
+            return;
+        }
+
+        ObjectNode json = objectMapper.createObjectNode();
+        for (RuleCount rule : rules.values()) {
+            json.set(rule.ruleId, rule.toJson());
+        }
+        Path file = INDEX_DIR.resolve("rules.json");
+        Path temp = INDEX_DIR.resolve("rules.json.tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), json);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Map<String, RuleCount> readRuleCounts() throws IOException {
+        Map<String, RuleCount> rules = new LinkedHashMap<>();
+        Path file = INDEX_DIR.resolve("rules.json");
+        if (!Files.exists(file)) {
+            return rules;
+        }
+        JsonNode json = objectMapper.readTree(file.toFile());
+        json.fields().forEachRemaining(field -> rules.put(field.getKey(), RuleCount.fromJson(field.getKey(), field.getValue())));
+        return rules;
+    }
+
+    private static List<Violation> readViolations(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return Collections.emptyList();
+        }
+        List<Violation> violations = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    violations.add(Violation.fromJson(objectMapper.readTree(line)));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static Set<String> fingerprints(List<Violation> violations) {
+        Set<String> fingerprints = new HashSet<>();
+        for (Violation violation : violations) {
+            fingerprints.add(violation.getFingerprint());
+        }
+        return fingerprints;
+    }
+
+    private static void appendLine(Path file, JsonNode json) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(json));
+            writer.write('\n');
+        }
+    }
+
+    private static void writeSeriesDescriptor(Path seriesDir, String platform, String scanName) throws IOException {
+        Path descriptor = seriesDir.resolve("series.properties");
+        if (Files.exists(descriptor)) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("platform", platform);
+        properties.setProperty("scanName", scanName);
+        try (OutputStream out = Files.newOutputStream(descriptor)) {
+            properties.store(out, "Accessibility scan series");
+        }
+    }
+
+    // Readable prefix for browsing plus a hash of the full key so different series never share a directory
+    static Path seriesDirectory(String platform, String scanName) {
+        String key = platform.toLowerCase() + "/" + scanName;
+        String readable = key.replaceAll("[^A-Za-z0-9._-]+", "_");
+        if (readable.length() > 80) {
+            readable = readable.substring(0, 80);
+        }
+        return INDEX_DIR.resolve("series").resolve(readable + "-" + Hashes.sha256(key).substring(0, 12));
+    }
+
+    /**
+     * One indexed scan, as stored in scans.jsonl.
+     */
+    public static class ScanRecord {
+        private final String platform;
+        private final String scanName;
+        private final long timestampMillis;
+        private final String reportFile;
+        private final int violations;
+        private final int newViolations;
+        private final int fixedViolations;
+        private final Map<String, Integer> violationsByImpact;
+
+        ScanRecord(String platform, String scanName, long timestampMillis, String reportFile, int violations,
+                   int newViolations, int fixedViolations, Map<String, Integer> violationsByImpact) {
+            this.platform = platform;
+            this.scanName = scanName;
+            this.timestampMillis = timestampMillis;
+            this.reportFile = reportFile;
+            this.violations = violations;
+            this.newViolations = newViolations;
+            this.fixedViolations = fixedViolations;
+            this.violationsByImpact = violationsByImpact;
+        }
+
+        public String getPlatform() {
+            return platform;
+        }
+
+        public String getScanName() {
+            return scanName;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        public String getReportFile() {
+            return reportFile;
+        }
+
+        public int getViolations() {
+            return violations;
+        }
+
+        // Violations whose fingerprint was not in the previous scan of the same platform and scan name
+        public int getNewViolations() {
+            return newViolations;
+        }
+
+        // Violations of the previous scan that are gone
+        public int getFixedViolations() {
+            return fixedViolations;
+        }
+
+        public Map<String, Integer> getViolationsByImpact() {
+            return violationsByImpact;
+        }
+
+        private ObjectNode toJson() {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("platform", platform);
+            node.put("scanName", scanName);
+            node.put("timestamp", timestampMillis);
+            node.put("reportFile", reportFile);
+            node.put("violations", violations);
+            node.put("newViolations", newViolations);
+            node.put("fixedViolations", fixedViolations);
+            ObjectNode byImpact = node.putObject("violationsByImpact");
+            violationsByImpact.forEach(byImpact::put);
+            return node;
+        }
+    }
+
+    /**
+     * Violations of one rule across every indexed scan.
+     */
+    public static class RuleCount {
+        private final String ruleId;
+        private String impact;
+        private long violations;
+        private long scans;
+        private long lastSeenMillis;
+
+        private RuleCount(String ruleId) {
+            this.ruleId = ruleId;
+        }
+
+        public String getRuleId() {
+            return ruleId;
+        }
+
+        // Most severe impact the rule was reported with
+        public String getImpact() {
+            return impact;
+        }
+
+        public long getViolations() {
+            return violations;
+        }
+
+        // Number of scans with at least one violation of the rule
+        public long getScans() {
+            return scans;
+        }
+
+        public long getLastSeenMillis() {
+            return lastSeenMillis;
+        }
+
+        private ObjectNode toJson() {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("impact", impact);
+            node.put("violations", violations);
+            node.put("scans", scans);
+            node.put("lastSeen", lastSeenMillis);
+            return node;
+        }
+
+        private static RuleCount fromJson(String ruleId, JsonNode node) {
+            RuleCount rule = new RuleCount(ruleId);
+            rule.impact = node.path("impact").asText("UNKNOWN");
+            rule.violations = node.path("violations").asLong();
+            rule.scans = node.path("scans").asLong();
+            rule.lastSeenMillis = node.path("lastSeen").asLong();
+            return rule;
+        }
+
+        @Override
+        public String toString() {
+            return ruleId + " (" + impact + "): " + violations + " violations in " + scans + " scans";
+        }
+    }
+}
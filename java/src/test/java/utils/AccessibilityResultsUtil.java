@@ -1,15 +1,25 @@
 package utils;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import java.io.File;
-import java.io.FileWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class AccessibilityResultsUtil {
@@ -17,57 +27,8 @@ public class AccessibilityResultsUtil {
     private static final String REPORTS_DIR = "reports/accessibility";
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    static {
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-    }
-
-    public static void saveResults(Object scanResults, String platform, String scanName) {
-        try {
-            ensureReportsDirectoryExists();
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
-            String baseFileName = String.format("%s-accessibility-scan_%s", platform.toLowerCase(), timestamp);
-
-            saveAsJson(scanResults, baseFileName);
-            saveAsHtml(scanResults, baseFileName, platform, scanName);
-
-            System.out.println("Accessibility scan results saved:");
-            System.out.println("  JSON: " + REPORTS_DIR + "/" + baseFileName + ".json");
-            System.out.println("  HTML: " + REPORTS_DIR + "/" + baseFileName + ".html");
-
-        } catch (Exception e) {
-            System.err.println("Failed to save accessibility scan results: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
-    private static void ensureReportsDirectoryExists() throws IOException {
-        Path reportsPath = Paths.get(REPORTS_DIR);
-        if (!Files.exists(reportsPath)) {
-            Files.createDirectories(reportsPath);
-            System.out.println("Created reports directory: " + REPORTS_DIR);
-        }
-    }
-
-    private static void saveAsJson(Object scanResults, String baseFileName) throws IOException {
-        String jsonFileName = REPORTS_DIR + "/" + baseFileName + ".json";
-        objectMapper.writeValue(new File(jsonFileName), scanResults);
-    }
-
-    private static void saveAsHtml(Object scanResults, String baseFileName, String platform, String scanName) throws IOException {
-        String htmlFileName = REPORTS_DIR + "/" + baseFileName + ".html";
-        String jsonContent = objectMapper.writeValueAsString(scanResults);
-
-        String htmlContent = generateHtmlReport(jsonContent, platform, scanName, baseFileName);
-
-        try (FileWriter writer = new FileWriter(htmlFileName)) {
-            writer.write(htmlContent);
-        }
-    }
-
-    private static String generateHtmlReport(String jsonContent, String platform, String scanName, String baseFileName) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-
-        return String.format(
+    // The HTML report is written as HTML_PREFIX (a format string), the escaped JSON and HTML_SUFFIX
+    private static final String HTML_PREFIX =
             "<!DOCTYPE html>\n" +
             "<html lang=\"en\">\n" +
             "<head>\n" +
@@ -158,14 +119,17 @@ public class AccessibilityResultsUtil {
             "                </tr>\n" +
             "                <tr>\n" +
             "                    <td>Report File:</td>\n" +
-            "                    <td>%s.json</td>\n" +
+            "                    <td>%s</td>\n" +
             "                </tr>\n" +
             "            </table>\n" +
             "        </div>\n" +
             "\n" +
             "        <h2>Scan Results (JSON)</h2>\n" +
             "        <div class=\"json-container\">\n" +
-            "            <pre>%s</pre>\n" +
+            "            <pre>";
+
+    private static final String HTML_SUFFIX =
+            "</pre>\n" +
             "        </div>\n" +
             "\n" +
             "        <div class=\"footer\">\n" +
@@ -173,14 +137,168 @@ public class AccessibilityResultsUtil {
             "        </div>\n" +
             "    </div>\n" +
             "</body>\n" +
-            "</html>",
-            platform.toUpperCase(),
-            platform.toUpperCase(),
-            platform.toUpperCase(),
-            scanName,
-            timestamp,
-            baseFileName,
-            jsonContent
-        );
+            "</html>";
+
+    static {
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
+        // The report writers are closed by saveResults, not by the serializer
+        objectMapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    public static void saveResults(Object scanResults, String platform, String scanName) {
+        try {
+            ensureReportsDirectoryExists();
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"));
+            String baseFileName = String.format("%s-accessibility-scan_%s", platform.toLowerCase(), timestamp);
+
+            // Compressed and size/age-bounded, see ArtifactStore
+            ArtifactStore store = ArtifactStore.forDirectory(Paths.get(REPORTS_DIR));
+            Path jsonFile;
+            Path htmlFile;
+            String jsonName = baseFileName + ".json";
+            try (ArtifactStore.Output jsonOut = store.create(jsonName);
+                 ArtifactStore.Output htmlOut = store.create(baseFileName + ".html")) {
+                Writer json = new BufferedWriter(new OutputStreamWriter(jsonOut, StandardCharsets.UTF_8));
+                Writer html = new BufferedWriter(new OutputStreamWriter(htmlOut, StandardCharsets.UTF_8));
+                writeReports(scanResults, json, html, platform, scanName, store.fileName(jsonName));
+                json.flush();
+                html.flush();
+                jsonFile = jsonOut.commit();
+                htmlFile = htmlOut.commit();
+            }
+
+            System.out.println("Accessibility scan results saved:");
+            System.out.println("  JSON: " + REPORTS_DIR + "/" + jsonFile.getFileName());
+            System.out.println("  HTML: " + REPORTS_DIR + "/" + htmlFile.getFileName());
+
+            indexResults(scanResults, platform, scanName, jsonFile.getFileName().toString());
+
+        } catch (Exception e) {
+            System.err.println("Failed to save accessibility scan results: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // The reports are saved even if the index cannot be updated
+    private static void indexResults(Object scanResults, String platform, String scanName, String reportFile) {
+        try {
+            List<AccessibilityViolations.Violation> violations = AccessibilityViolations.extract(scanResults, platform);
+            AccessibilityIndex.ScanRecord scan = AccessibilityIndex.record(platform, scanName, System.currentTimeMillis(),
+                    reportFile, violations);
+            System.out.println("  Index: " + scan.getViolations() + " violations (" + scan.getNewViolations() + " new, "
+                    + scan.getFixedViolations() + " fixed since the last scan) " + scan.getViolationsByImpact());
+        } catch (Exception e) {
+            System.err.println("Failed to index accessibility scan results: " + e.getMessage());
+        }
+    }
+
+    // Merges the scan results of several screens into one result that is saved, indexed and diffed like a single
+    // scan: every rule result is tagged with its screen, and axeMetaData lists the screens with their own metadata
+    public static Map<String, Object> mergeScreenResults(Map<String, ?> resultsByScreen) {
+        ArrayNode rules = objectMapper.createArrayNode();
+        ArrayNode screens = objectMapper.createArrayNode();
+        for (Map.Entry<String, ?> entry : resultsByScreen.entrySet()) {
+            JsonNode result = objectMapper.valueToTree(entry.getValue());
+            int ruleResults = 0;
+            for (JsonNode rule : result.path("axeRuleResults")) {
+                if (rule.isObject()) {
+                    rules.add(((ObjectNode) rule).put("screen", entry.getKey()));
+                    ruleResults++;
+                }
+            }
+            ObjectNode screen = screens.addObject();
+            screen.put("screen", entry.getKey());
+            screen.put("ruleResults", ruleResults);
+            screen.set("axeMetaData", result.path("axeMetaData").isMissingNode() ? null : result.get("axeMetaData"));
+        }
+
+        ObjectNode metaData = objectMapper.createObjectNode();
+        metaData.set("screens", screens);
+        Map<String, Object> merged = new LinkedHashMap<>();
+        merged.put("axeRuleResults", rules);
+        merged.put("axeMetaData", metaData);
+        return merged;
+    }
+
+    private static void ensureReportsDirectoryExists() throws IOException {
+        Path reportsPath = Paths.get(REPORTS_DIR);
+        if (!Files.exists(reportsPath)) {
+            Files.createDirectories(reportsPath);
+            System.out.println("Created reports directory: " + REPORTS_DIR);
+        }
+    }
+
+    // Serializes the scan results once: the JSON is written to the JSON report and, HTML-escaped, into the <pre>
+    // block of the HTML report as it is generated, so no copy of the results is held in memory.
+    // Package-private for the JMH benchmarks (src/jmh)
+    static void writeReports(Object scanResults, Writer json, Writer html, String platform, String scanName,
+                             String jsonFileName) throws IOException {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        String platformName = escapeHtml(platform.toUpperCase());
+        html.write(String.format(HTML_PREFIX, platformName, platformName, platformName, escapeHtml(scanName), timestamp,
+                escapeHtml(jsonFileName)));
+
+        Writer tee = new TeeWriter(json, html);
+        objectMapper.writeValue(tee, scanResults);
+        tee.flush();
+
+        html.write(HTML_SUFFIX);
+    }
+
+    private static String escapeHtml(String text) {
+        StringWriter escaped = new StringWriter(text.length());
+        try {
+            writeEscaped(escaped, text.toCharArray(), 0, text.length());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return escaped.toString();
+    }
+
+    // Copies runs of plain characters in one call and replaces the characters that are markup in HTML text
+    private static void writeEscaped(Writer out, char[] chars, int offset, int length) throws IOException {
+        int runStart = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            String entity;
+            switch (chars[i]) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                default: continue;
+            }
+            out.write(chars, runStart, i - runStart);
+            out.write(entity);
+            runStart = i + 1;
+        }
+        out.write(chars, runStart, end - runStart);
+    }
+
+    // Writes the JSON to the JSON report as is and HTML-escaped to the HTML report. Closing it leaves both open.
+    private static class TeeWriter extends Writer {
+        private final Writer json;
+        private final Writer html;
+
+        TeeWriter(Writer json, Writer html) {
+            this.json = json;
+            this.html = html;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            json.write(chars, offset, length);
+            writeEscaped(html, chars, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+            html.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
     }
-}
\ No newline at end of file
+}
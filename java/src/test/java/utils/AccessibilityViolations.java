@@ -0,0 +1,195 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Extracts the violations from the results of a mobile: axeScan.
+ *
+ * A violation is a rule result with status FAIL. Each one gets an element fingerprint built from the platform,
+ * the rule, the attributes that identify the element across runs (class, resource id or accessibility
+ * identifier, accessibility label) and its bounds rounded to a coarse grid. Axe view ids, texts and exact bounds
+ * change from run to run and are left out, so the same violation on the same element has the same fingerprint
+ * in every scan, and on every screen the element appears on.
+ */
+public final class AccessibilityViolations {
+
+    // Most severe first
+    public static final List<String> IMPACTS = Collections.unmodifiableList(
+            Arrays.asList("CRITICAL", "SERIOUS", "MODERATE", "MINOR", "UNKNOWN"));
+
+    private static final String[] ELEMENT_KEYS = {
+            "viewIdResourceName", "accessibilityIdentifier", "className", "contentDescription", "accessibilityLabel"
+    };
+    private static final String[] BOUNDS_KEYS = {"boundsInScreen", "frame", "bounds"};
+    // Elements that moved by less than a grid cell keep their fingerprint
+    private static final int BOUNDS_BUCKET_PX = 100;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AccessibilityViolations() {}
+
+    // Scan results as returned by executeScript("mobile: axeScan", ...); results without rule results have no violations
+    public static List<Violation> extract(Object scanResults, String platform) {
+        JsonNode root = objectMapper.valueToTree(scanResults);
+        JsonNode rules = root.path("axeRuleResults");
+        if (!rules.isArray()) {
+            return Collections.emptyList();
+        }
+
+        List<Violation> violations = new ArrayList<>();
+        for (JsonNode rule : rules) {
+            if (!"FAIL".equalsIgnoreCase(rule.path("status").asText())) {
+                continue;
+            }
+            String ruleId = rule.path("ruleId").asText("unknown");
+            JsonNode props = rule.path("props");
+            String element = describeElement(props);
+            String fingerprint = Hashes.sha256(String.join("\n", platform.toLowerCase(Locale.ROOT), ruleId, element, boundsBucket(props)))
+                    .substring(0, 16);
+            violations.add(new Violation(ruleId, normalizeImpact(rule.path("impact").asText("")), fingerprint, element));
+        }
+        return violations;
+    }
+
+    // Counts by impact, most severe first, including impacts with no violation
+    public static Map<String, Integer> countByImpact(List<Violation> violations) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String impact : IMPACTS) {
+            counts.put(impact, 0);
+        }
+        for (Violation violation : violations) {
+            counts.merge(violation.getImpact(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // The more severe of two impacts
+    public static String mostSevere(String impact, String other) {
+        return IMPACTS.indexOf(normalizeImpact(impact)) <= IMPACTS.indexOf(normalizeImpact(other))
+                ? normalizeImpact(impact) : normalizeImpact(other);
+    }
+
+    static String normalizeImpact(String impact) {
+        String normalized = impact == null ? "" : impact.trim().toUpperCase(Locale.ROOT);
+        return IMPACTS.contains(normalized) ? normalized : "UNKNOWN";
+    }
+
+    private static String describeElement(JsonNode props) {
+        StringBuilder element = new StringBuilder();
+        for (String key : ELEMENT_KEYS) {
+            JsonNode value = props.get(key);
+            if (value != null && !value.isNull() && !value.asText().isEmpty()) {
+                if (element.length() > 0) {
+                    element.append(", ");
+                }
+                element.append(key).append('=').append(value.asText());
+            }
+        }
+        return element.length() > 0 ? element.toString() : "unidentified element";
+    }
+
+    // Center of the element on a BOUNDS_BUCKET_PX grid, e.g. "3:12"; empty when the scan has no bounds.
+    // Bounds are either an object (left/top/right/bottom or x/y/width/height) or a string of numbers.
+    static String boundsBucket(JsonNode props) {
+        for (String key : BOUNDS_KEYS) {
+            JsonNode bounds = props.get(key);
+            if (bounds == null || bounds.isNull()) {
+                continue;
+            }
+            double[] rect = null;
+            if (bounds.has("left") && bounds.has("top") && bounds.has("right") && bounds.has("bottom")) {
+                rect = new double[] {bounds.get("left").asDouble(), bounds.get("top").asDouble(),
+                        bounds.get("right").asDouble(), bounds.get("bottom").asDouble()};
+            } else if (bounds.has("x") && bounds.has("y") && bounds.has("width") && bounds.has("height")) {
+                double x = bounds.get("x").asDouble();
+                double y = bounds.get("y").asDouble();
+                rect = new double[] {x, y, x + bounds.get("width").asDouble(), y + bounds.get("height").asDouble()};
+            } else if (bounds.isTextual()) {
+                rect = parseRect(bounds.asText());
+            }
+            if (rect != null) {
+                long column = Math.round((rect[0] + rect[2]) / 2) / BOUNDS_BUCKET_PX;
+                long row = Math.round((rect[1] + rect[3]) / 2) / BOUNDS_BUCKET_PX;
+                return column + ":" + row;
+            }
+        }
+        return "";
+    }
+
+    // "[0,210][1080,338]" or "0, 210, 1080, 338" as left, top, right, bottom
+    private static double[] parseRect(String text) {
+        String[] numbers = text.replaceAll("[^0-9.-]+", " ").trim().split(" ");
+        if (numbers.length != 4) {
+            return null;
+        }
+        double[] rect = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                rect[i] = Double.parseDouble(numbers[i]);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return rect;
+    }
+
+    /**
+     * One failed rule on one element.
+     */
+    public static final class Violation {
+        private final String ruleId;
+        private final String impact;
+        private final String fingerprint;
+        private final String element;
+
+        public Violation(String ruleId, String impact, String fingerprint, String element) {
+            this.ruleId = ruleId;
+            this.impact = impact;
+            this.fingerprint = fingerprint;
+            this.element = element;
+        }
+
+        public String getRuleId() {
+            return ruleId;
+        }
+
+        public String getImpact() {
+            return impact;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public String getElement() {
+            return element;
+        }
+
+        ObjectNode toJson() {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("ruleId", ruleId);
+            node.put("impact", impact);
+            node.put("fingerprint", fingerprint);
+            node.put("element", element);
+            return node;
+        }
+
+        static Violation fromJson(JsonNode node) {
+            return new Violation(node.path("ruleId").asText(), node.path("impact").asText(),
+                    node.path("fingerprint").asText(), node.path("element").asText());
+        }
+
+        @Override
+        public String toString() {
+            return impact + " " + ruleId + " on " + element + " [" + fingerprint + "]";
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+
+/**
+ * Unit tests of the violation extraction and element fingerprints of {@link AccessibilityViolations}.
+ */
+public class AccessibilityViolationsTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void boundsBucketOfEveryBoundsFormat() throws Exception {
+        // All centered on (540, 274), on the 100 px grid
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"boundsInScreen\": {\"left\": 0, \"top\": 210, \"right\": 1080, \"bottom\": 338}}")), "5:2");
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"frame\": {\"x\": 500, \"y\": 250, \"width\": 80, \"height\": 48}}")), "5:2");
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"bounds\": \"[0,210][1080,338]\"}")), "5:2");
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"bounds\": \"0, 210, 1080, 338\"}")), "5:2");
+    }
+
+    @Test
+    public void boundsBucketIsEmptyWithoutUsableBounds() throws Exception {
+        assertEquals(AccessibilityViolations.boundsBucket(json("{}")), "");
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"boundsInScreen\": null}")), "");
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"bounds\": \"[0,210][1080]\"}")), "");
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"frame\": {\"x\": 500, \"y\": 250}}")), "");
+    }
+
+    @Test
+    public void boundsBucketFallsBackToTheNextKey() throws Exception {
+        assertEquals(AccessibilityViolations.boundsBucket(json("{\"boundsInScreen\": \"unknown\", \"bounds\": \"[0,0][200,200]\"}")), "1:1");
+    }
+
+    @Test
+    public void onlyFailedRulesAreViolations() {
+        List<AccessibilityViolations.Violation> violations = AccessibilityViolations.extract(scan(
+                rule("ColorContrast", "FAIL", "serious", element("Login", 0, 210)),
+                rule("TouchTargetSize", "PASS", "moderate", element("Login", 0, 210)),
+                rule("SpeakableText", "fail", "bogus", element("Password", 0, 400))), "Android");
+
+        assertEquals(violations.size(), 2);
+        assertEquals(violations.get(0).getRuleId(), "ColorContrast");
+        assertEquals(violations.get(0).getImpact(), "SERIOUS");
+        assertEquals(violations.get(1).getImpact(), "UNKNOWN");
+        assertEquals(violations.get(0).getElement(), "viewIdResourceName=com.experitest.ExperiBank:id/Login, className=android.widget.Button");
+    }
+
+    @Test
+    public void scanWithoutRuleResultsHasNoViolations() {
+        assertEquals(AccessibilityViolations.extract(new HashMap<>(), "iOS").size(), 0);
+    }
+
+    @Test
+    public void fingerprintIgnoresRunToRunChanges() {
+        Map<String, Object> element = element("Login", 0, 210);
+        Map<String, Object> nextRun = element("Login", 20, 230);
+        // Axe view ids and texts change between runs
+        nextRun.put("axeViewId", 12345);
+        nextRun.put("text", "Log in");
+
+        assertEquals(fingerprint("ColorContrast", element, "Android"), fingerprint("ColorContrast", nextRun, "Android"));
+    }
+
+    @Test
+    public void fingerprintSeparatesRulesPlatformsAndPositions() {
+        String fingerprint = fingerprint("ColorContrast", element("Login", 0, 210), "Android");
+
+        assertNotEquals(fingerprint("TouchTargetSize", element("Login", 0, 210), "Android"), fingerprint);
+        assertNotEquals(fingerprint("ColorContrast", element("Login", 0, 210), "iOS"), fingerprint);
+        assertNotEquals(fingerprint("ColorContrast", element("Login", 0, 810), "Android"), fingerprint, "moved to another grid row");
+        assertNotEquals(fingerprint("ColorContrast", element("Register", 0, 210), "Android"), fingerprint);
+    }
+
+    private static String fingerprint(String ruleId, Map<String, Object> element, String platform) {
+        return AccessibilityViolations.extract(scan(rule(ruleId, "FAIL", "serious", element)), platform).get(0).getFingerprint();
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> scan(Map<String, Object>... rules) {
+        Map<String, Object> scan = new HashMap<>();
+        scan.put("axeRuleResults", Arrays.asList(rules));
+        return scan;
+    }
+
+    private static Map<String, Object> rule(String ruleId, String status, String impact, Map<String, Object> props) {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("ruleId", ruleId);
+        rule.put("status", status);
+        rule.put("impact", impact);
+        rule.put("props", props);
+        return rule;
+    }
+
+    // A full-width button whose top edge is at top
+    private static Map<String, Object> element(String id, int left, int top) {
+        Map<String, Object> bounds = new HashMap<>();
+        bounds.put("left", left);
+        bounds.put("top", top);
+        bounds.put("right", left + 1080);
+        bounds.put("bottom", top + 128);
+        Map<String, Object> props = new HashMap<>();
+        props.put("viewIdResourceName", "com.experitest.ExperiBank:id/" + id);
+        props.put("className", "android.widget.Button");
+        props.put("boundsInScreen", bounds);
+        return props;
+    }
+
+    private static JsonNode json(String text) throws Exception {
+        return objectMapper.readTree(text);
+    }
+}
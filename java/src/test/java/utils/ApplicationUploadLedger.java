@@ -0,0 +1,109 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Disk-persisted record of application builds known to be present in the cloud.
+ *
+ * Entries are keyed by a hash of (cloud URL, uniqueName, source URL, ETag/content tag) and store the
+ * time the build was last confirmed. The file lives under build/ so it survives across test JVMs
+ * and forks but is removed by a clean build.
+ */
+public class ApplicationUploadLedger {
+
+    private static final Path LEDGER_FILE = Paths.get("build", "app-upload-ledger.properties");
+    private static final Properties entries = new Properties();
+
+    static {
+        entries.putAll(readLedgerFile());
+    }
+
+    private ApplicationUploadLedger() {}
+
+    public static String key(String cloudUrl, String uniqueName, String sourceUrl, String contentTag) {
+        return Hashes.sha256(String.join("\n", cloudUrl, uniqueName, sourceUrl, contentTag));
+    }
+
+    // Returns the epoch millis at which the build was last confirmed present, or -1 if unknown
+    public static synchronized long getConfirmedAt(String key) {
+        return parseMillis(entries.getProperty(key));
+    }
+
+    // Picks up entries written by other forks since this JVM loaded the ledger
+    public static synchronized void refresh() {
+        Properties onDisk = readLedgerFile();
+        for (String key : onDisk.stringPropertyNames()) {
+            if (parseMillis(entries.getProperty(key)) < parseMillis(onDisk.getProperty(key))) {
+                entries.setProperty(key, onDisk.getProperty(key));
+            }
+        }
+    }
+
+    public static synchronized void recordPresent(String key) {
+        entries.setProperty(key, String.valueOf(System.currentTimeMillis()));
+        persist(null);
+    }
+
+    public static synchronized void forget(String key) {
+        entries.remove(key);
+        persist(key);
+    }
+
+    private static void persist(String forgottenKey) {
+        try {
+            Files.createDirectories(LEDGER_FILE.getParent());
+
+            // Other forks may have written since we loaded; keep their entries unless ours are newer
+            Properties merged = readLedgerFile();
+            for (String key : entries.stringPropertyNames()) {
+                String ours = entries.getProperty(key);
+                String theirs = merged.getProperty(key);
+                if (parseMillis(theirs) < parseMillis(ours)) {
+                    merged.setProperty(key, ours);
+                }
+            }
+            if (forgottenKey != null) {
+                merged.remove(forgottenKey);
+            }
+
+            Path tempFile = Files.createTempFile(LEDGER_FILE.getParent(), "app-upload-ledger", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                merged.store(out, "Application builds known to be present in the cloud");
+            }
+            Files.move(tempFile, LEDGER_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            entries.putAll(merged);
+        } catch (IOException e) {
+            System.err.println("ApplicationUploadLedger - Could not persist upload ledger: " + e.getMessage());
+        }
+    }
+
+    private static long parseMillis(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Properties readLedgerFile() {
+        Properties properties = new Properties();
+        if (Files.exists(LEDGER_FILE)) {
+            try (InputStream in = Files.newInputStream(LEDGER_FILE)) {
+                properties.load(in);
+            } catch (IOException e) {
+                System.err.println("ApplicationUploadLedger - Ignoring unreadable upload ledger: " + e.getMessage());
+            }
+        }
+        return properties;
+    }
+}
@@ -2,49 +2,119 @@ package utils;
 
 import kong.unirest.HttpResponse;
 import kong.unirest.Unirest;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 public class ApplicationUploadUtil {
 
     public static final String SEETEST_UNMODIFIED = "seetest-unmodified";
     public static final String SEETEST_MODIFIED = "seetest-modified";
     public static final String SEETEST_FULLNAME = "cloud:com.experitest.ExperiBank";
 
+    // Bounded so that a suite kicking off many uploads does not flood the cloud API
+    private static final ExecutorService uploadExecutor = Executors.newFixedThreadPool(
+            EnvironmentConfig.getUploadExecutorThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "application-upload");
+                thread.setDaemon(true);
+                return thread;
+            });
+
     public ApplicationUploadUtil() {}
 
     public void uploadApplicationApi(String filePath, String uniqueName) {
+        UploadResult result = uploadApplication(filePath, uniqueName);
+        if (result.getStatus() == UploadResult.Status.FAILED) {
+            System.err.println("uploadApplicationApi() - Error uploading application: " + result.getMessage());
+        }
+    }
+
+    // Runs the upload on the upload executor; failures are reported as a FAILED result rather than an exception
+    public CompletableFuture<UploadResult> uploadApplicationAsync(String filePath, String uniqueName) {
+        // Queued until an upload thread picks it up (appium_upload_queue_depth)
+        RunnerMetrics.UPLOAD_QUEUE_DEPTH.inc();
+        return CompletableFuture.supplyAsync(() -> {
+            RunnerMetrics.UPLOAD_QUEUE_DEPTH.dec();
+            return uploadApplication(filePath, uniqueName);
+        }, uploadExecutor);
+    }
+
+    public UploadResult uploadApplication(String filePath, String uniqueName) {
+        FlightRecorderEvents.ApplicationUpload event = new FlightRecorderEvents.ApplicationUpload();
+        event.begin();
+        UploadResult result = upload(filePath, uniqueName);
+        RunnerMetrics.UPLOAD_SECONDS.observe(result.getDurationMillis() / 1000.0, result.getStatus().name());
+        if (event.shouldCommit()) {
+            event.uniqueName = uniqueName;
+            event.status = result.getStatus().name();
+            event.fromLedger = result.isFromLedger();
+            event.commit();
+        }
+        return result;
+    }
+
+    private UploadResult upload(String filePath, String uniqueName) {
+        long startNanos = System.nanoTime();
         try {
             String cloudUrl = EnvironmentConfig.getCloudUrl();
             String apiBaseUrl = extractApiBaseUrl(cloudUrl);
+            // Without a content tag a rebuilt file at the same URL cannot be told apart, so the ledger is not used
+            String contentTag = EnvironmentConfig.isUploadLedgerEnabled() ? fetchContentTag(filePath) : null;
+            String ledgerKey = contentTag != null ? ApplicationUploadLedger.key(cloudUrl, uniqueName, filePath, contentTag) : null;
+            String flightKey = ledgerKey != null ? ledgerKey : ApplicationUploadLedger.key(cloudUrl, uniqueName, filePath, "");
 
-            HttpResponse<String> response = Unirest.post(apiBaseUrl + "/api/v1/applications/new-from-url")
-                    .header("Authorization", "Bearer " + EnvironmentConfig.getAccessKey())
-                    .field("url", filePath)
-                    .field("uniqueName", uniqueName)
-                    .asString();
+            if (isKnownPresent(ledgerKey, apiBaseUrl, uniqueName)) {
+                System.out.println("uploadApplicationApi() - " + uniqueName + " is already present in the cloud. Skipping upload.");
+                return new UploadResult(UploadResult.Status.ALREADY_EXISTS, uniqueName,
+                        "Known to the upload ledger", elapsedMillis(startNanos), true);
+            }
 
-            JSONObject responseBody = new JSONObject(response.getBody());
-
-            if (!responseBody.has("message")) {
-                System.out.println("uploadApplicationApi() - Android APK Build Uploaded to the Digital.ai Continuous Testing Platform.");
-            } else {
-                String message = responseBody.getString("message");
-
-                if ("Application already exists".equals(message)) {
-                    System.out.println("uploadApplicationApi() - Android APK Build Already exists. Avoiding Upload of Duplicate Application.");
-                } else {
-                    try {
-                        System.out.println("uploadApplicationApi() - " + message);
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+            // Parallel tests and forks uploading the same build wait for a single upload instead of racing
+            return UploadSingleFlight.execute(flightKey, () -> {
+                ApplicationUploadLedger.refresh();
+                if (isKnownPresent(ledgerKey, apiBaseUrl, uniqueName)) {
+                    System.out.println("uploadApplicationApi() - " + uniqueName + " was uploaded by a concurrent test. Skipping upload.");
+                    return new UploadResult(UploadResult.Status.ALREADY_EXISTS, uniqueName,
+                            "Uploaded by a concurrent test", elapsedMillis(startNanos), true);
                 }
-            }
+                return postApplication(apiBaseUrl, filePath, uniqueName, ledgerKey, startNanos);
+            });
 
         } catch (Exception e) {
-            System.err.println("uploadApplicationApi() - Error uploading application: " + e.getMessage());
             e.printStackTrace();
+            return new UploadResult(UploadResult.Status.FAILED, uniqueName, e.getMessage(), elapsedMillis(startNanos), false);
+        }
+    }
+
+    private UploadResult postApplication(String apiBaseUrl, String filePath, String uniqueName, String ledgerKey, long startNanos) {
+        HttpResponse<String> response = Unirest.post(apiBaseUrl + "/api/v1/applications/new-from-url")
+                .header("Authorization", "Bearer " + EnvironmentConfig.getAccessKey())
+                .field("url", filePath)
+                .field("uniqueName", uniqueName)
+                .asString();
+
+        JSONObject responseBody = new JSONObject(response.getBody());
+
+        if (!responseBody.has("message")) {
+            System.out.println("uploadApplicationApi() - Android APK Build Uploaded to the Digital.ai Continuous Testing Platform.");
+            recordPresent(ledgerKey);
+            return new UploadResult(UploadResult.Status.UPLOADED, uniqueName, "Uploaded", elapsedMillis(startNanos), false);
+        }
+
+        String message = responseBody.getString("message");
+
+        if ("Application already exists".equals(message)) {
+            System.out.println("uploadApplicationApi() - Android APK Build Already exists. Avoiding Upload of Duplicate Application.");
+            recordPresent(ledgerKey);
+            return new UploadResult(UploadResult.Status.ALREADY_EXISTS, uniqueName, message, elapsedMillis(startNanos), false);
         }
+
+        System.out.println("uploadApplicationApi() - " + message);
+        return new UploadResult(UploadResult.Status.FAILED, uniqueName, message, elapsedMillis(startNanos), false);
     }
 
     public void uploadUnmodifiedApplication() {
@@ -59,6 +129,14 @@ public class ApplicationUploadUtil {
         uploadApplicationApi(modifiedUrl, SEETEST_MODIFIED);
     }
 
+    public CompletableFuture<UploadResult> uploadUnmodifiedApplicationAsync() {
+        return uploadApplicationAsync(EnvironmentConfig.getUnmodifiedBuildUrl(), SEETEST_UNMODIFIED);
+    }
+
+    public CompletableFuture<UploadResult> uploadModifiedApplicationAsync() {
+        return uploadApplicationAsync(EnvironmentConfig.getModifiedBuildUrl(), SEETEST_MODIFIED);
+    }
+
     public void uploadApplicationByType(String applicationType) {
         if (SEETEST_UNMODIFIED.equalsIgnoreCase(applicationType)) {
             uploadUnmodifiedApplication();
@@ -70,6 +148,100 @@ public class ApplicationUploadUtil {
         }
     }
 
+    // A ledger entry younger than the TTL is trusted as-is; older entries are re-checked against the cloud.
+    // ledgerKey is null when the content of the build is unknown.
+    private boolean isKnownPresent(String ledgerKey, String apiBaseUrl, String uniqueName) {
+        if (ledgerKey == null || !EnvironmentConfig.isUploadLedgerEnabled()) {
+            return false;
+        }
+
+        long confirmedAt = ApplicationUploadLedger.getConfirmedAt(ledgerKey);
+        if (confirmedAt < 0) {
+            return false;
+        }
+
+        long ttlMillis = EnvironmentConfig.getUploadLedgerTtlMinutes() * 60_000L;
+        if (System.currentTimeMillis() - confirmedAt < ttlMillis) {
+            return true;
+        }
+
+        if (applicationExists(apiBaseUrl, uniqueName)) {
+            ApplicationUploadLedger.recordPresent(ledgerKey);
+            return true;
+        }
+        ApplicationUploadLedger.forget(ledgerKey);
+        return false;
+    }
+
+    private void recordPresent(String ledgerKey) {
+        if (ledgerKey != null) {
+            ApplicationUploadLedger.recordPresent(ledgerKey);
+        }
+    }
+
+    private boolean applicationExists(String apiBaseUrl, String uniqueName) {
+        try {
+            HttpResponse<String> response = Unirest.get(apiBaseUrl + "/api/v1/applications")
+                    .header("Authorization", "Bearer " + EnvironmentConfig.getAccessKey())
+                    .queryString("uniqueName", uniqueName)
+                    .asString();
+
+            if (!response.isSuccess()) {
+                return false;
+            }
+
+            String body = response.getBody().trim();
+            JSONArray applications = body.startsWith("[")
+                    ? new JSONArray(body)
+                    : new JSONObject(body).optJSONArray("data");
+            if (applications == null) {
+                return false;
+            }
+
+            // The filter is not honoured by every cloud version, so match uniqueName explicitly
+            for (int i = 0; i < applications.length(); i++) {
+                JSONObject application = applications.optJSONObject(i);
+                if (application != null && uniqueName.equals(application.optString("uniqueName"))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            System.err.println("applicationExists() - Could not verify application " + uniqueName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // The ETag (or Last-Modified + Content-Length) of the source build identifies its content without downloading it.
+    // Returns null when the server does not tell, in which case the upload is always verified with the cloud.
+    private String fetchContentTag(String filePath) {
+        try {
+            HttpResponse<String> response = Unirest.head(filePath).asString();
+            if (!response.isSuccess()) {
+                System.err.println("fetchContentTag() - HEAD " + filePath + " returned " + response.getStatus() + ", not using the upload ledger");
+                return null;
+            }
+            String etag = response.getHeaders().getFirst("ETag");
+            if (etag != null && !etag.isEmpty()) {
+                return etag;
+            }
+            String lastModified = response.getHeaders().getFirst("Last-Modified");
+            String contentLength = response.getHeaders().getFirst("Content-Length");
+            if (lastModified == null || lastModified.isEmpty() || contentLength == null || contentLength.isEmpty()) {
+                System.out.println("fetchContentTag() - No ETag or Last-Modified for " + filePath + ", not using the upload ledger");
+                return null;
+            }
+            return lastModified + "/" + contentLength;
+        } catch (Exception e) {
+            System.err.println("fetchContentTag() - Could not read content tag for " + filePath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
     private String extractApiBaseUrl(String cloudUrl) {
         if (cloudUrl.endsWith("/wd/hub")) {
             return cloudUrl.substring(0, cloudUrl.length() - 7);
@@ -0,0 +1,310 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressed, size- and age-bounded storage for report artifacts (accessibility reports, HAR files).
+ *
+ * Artifacts are written gzip-compressed (ARTIFACT_COMPRESSION=gzip, the default, adds .gz to the file name) to
+ * a temporary file that is renamed into place on commit, so readers never see partial artifacts. manifest.json
+ * in the store directory maps each artifact name to its file, sizes, creation and last access time. After every
+ * commit, artifacts older than ARTIFACT_RETENTION_MAX_AGE_DAYS are deleted, then the least recently used ones
+ * until the store fits in ARTIFACT_RETENTION_MAX_MB. Files the manifest does not know about are left alone.
+ * Manifest updates are serialized with a file lock so parallel Gradle forks can share a store.
+ */
+public class ArtifactStore {
+
+    private static final String MANIFEST = "manifest.json";
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Map<Path, ArtifactStore> stores = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final boolean gzip;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+
+    private ArtifactStore(Path directory) {
+        this.directory = directory;
+        this.gzip = !"none".equalsIgnoreCase(EnvironmentConfig.getArtifactCompression());
+        this.maxBytes = EnvironmentConfig.getArtifactRetentionMaxMb() * 1024L * 1024L;
+        this.maxAgeMillis = TimeUnit.DAYS.toMillis(EnvironmentConfig.getArtifactRetentionMaxAgeDays());
+    }
+
+    // One store per directory, shared by every caller in the JVM
+    public static ArtifactStore forDirectory(Path directory) {
+        return stores.computeIfAbsent(directory.toAbsolutePath().normalize(), ArtifactStore::new);
+    }
+
+    // Reads an artifact file, decompressing it if its name ends with .gz
+    public static InputStream openFile(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES);
+        return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, BUFFER_BYTES) : in;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    // Name of the file an artifact is stored in
+    public String fileName(String name) {
+        return gzip ? name + ".gz" : name;
+    }
+
+    // Opens a new artifact for writing; it only replaces an artifact of the same name when committed
+    public Output create(String name) throws IOException {
+        return new Output(name, false);
+    }
+
+    // For content that is already gzip-compressed, e.g. a gzip-encoded HTTP response, stored without recompressing.
+    // Only for gzip stores.
+    public Output createPrecompressed(String name) throws IOException {
+        if (!gzip) {
+            throw new IllegalStateException("Artifact store " + directory + " does not compress artifacts");
+        }
+        return new Output(name, true);
+    }
+
+    // File of an artifact, or null if the store does not have it (anymore); does not count as an access
+    public Path find(String name) throws IOException {
+        JsonNode entry = readManifest().get(name);
+        return entry != null ? directory.resolve(entry.path("file").asText()) : null;
+    }
+
+    // Reads an artifact and marks it as recently used, which keeps it from being evicted first
+    public InputStream open(String name) throws IOException {
+        Path file = withManifest(manifest -> {
+            JsonNode entry = manifest.get(name);
+            if (entry == null) {
+                return null;
+            }
+            ((ObjectNode) entry).put("lastAccess", System.currentTimeMillis());
+            return directory.resolve(entry.path("file").asText());
+        });
+        if (file == null) {
+            throw new NoSuchFileException(directory.resolve(name).toString(), null, "Not in the artifact store");
+        }
+        return openFile(file);
+    }
+
+    private void record(String name, Path tempFile, long contentBytes) throws IOException {
+        String fileName = fileName(name);
+        Path target = directory.resolve(fileName);
+        moveIntoPlace(tempFile, target);
+        long storedBytes = Files.size(target);
+
+        List<String> evicted = withManifest(manifest -> {
+            long now = System.currentTimeMillis();
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.put("file", fileName);
+            entry.put("contentBytes", contentBytes);
+            entry.put("storedBytes", storedBytes);
+            entry.put("created", now);
+            entry.put("lastAccess", now);
+            manifest.set(name, entry);
+            return applyRetention(manifest, now);
+        });
+        if (!evicted.isEmpty()) {
+            System.out.println("ArtifactStore - Evicted " + evicted.size() + " artifacts from " + directory + ": " + evicted);
+        }
+    }
+
+    // Age limit first, then least recently used first until the store fits; the newest artifact is always kept
+    private List<String> applyRetention(ObjectNode manifest, long now) throws IOException {
+        List<String> evicted = new ArrayList<>();
+        long totalBytes = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> it = manifest.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            if (now - entry.getValue().path("created").asLong() > maxAgeMillis) {
+                delete(entry.getValue());
+                evicted.add(entry.getKey());
+                it.remove();
+            } else {
+                totalBytes += entry.getValue().path("storedBytes").asLong();
+            }
+        }
+
+        if (totalBytes > maxBytes) {
+            List<Map.Entry<String, JsonNode>> byLastAccess = new ArrayList<>();
+            manifest.fields().forEachRemaining(byLastAccess::add);
+            byLastAccess.sort((a, b) -> Long.compare(a.getValue().path("lastAccess").asLong(), b.getValue().path("lastAccess").asLong()));
+            for (int i = 0; i < byLastAccess.size() - 1 && totalBytes > maxBytes; i++) {
+                Map.Entry<String, JsonNode> entry = byLastAccess.get(i);
+                delete(entry.getValue());
+                totalBytes -= entry.getValue().path("storedBytes").asLong();
+                evicted.add(entry.getKey());
+                manifest.remove(entry.getKey());
+            }
+        }
+        return evicted;
+    }
+
+    private void delete(JsonNode entry) throws IOException {
+        Files.deleteIfExists(directory.resolve(entry.path("file").asText()));
+    }
+
+    private interface ManifestUpdate<T> {
+        T apply(ObjectNode manifest) throws IOException;
+    }
+
+    // Runs the update on the current manifest under the store lock and writes the manifest back
+    private <T> T withManifest(ManifestUpdate<T> update) throws IOException {
+        synchronized (this) {
+            Files.createDirectories(directory);
+            try (FileChannel lockChannel = FileChannel.open(directory.resolve(".manifest.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockChannel.lock()) {
+                ObjectNode manifest = readManifest();
+                T result = update.apply(manifest);
+
+                Path temp = directory.resolve(MANIFEST + ".tmp");
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), manifest);
+                moveIntoPlace(temp, directory.resolve(MANIFEST));
+                return result;
+            }
+        }
+    }
+
+    // The manifest is replaced atomically, so it can be read without the lock
+    private ObjectNode readManifest() throws IOException {
+        Path manifestFile = directory.resolve(MANIFEST);
+        return Files.exists(manifestFile)
+                ? (ObjectNode) objectMapper.readTree(manifestFile.toFile())
+                : objectMapper.createObjectNode();
+    }
+
+    private static void moveIntoPlace(Path tempFile, Path target) throws IOException {
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * An artifact being written. Nothing is stored until commit(); closing it without committing discards it.
+     */
+    public class Output extends FilterOutputStream {
+        private final String name;
+        private final Path tempFile;
+        private final FileChannel channel;
+        private final boolean compressing;
+        private long contentBytes;
+        private boolean committed;
+        private boolean closed;
+
+        private Output(String name, boolean precompressed) throws IOException {
+            super(null);
+            this.name = name;
+            Files.createDirectories(directory);
+            this.tempFile = Files.createTempFile(directory, name, ".part");
+            this.channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+            this.compressing = gzip && !precompressed;
+            OutputStream file = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES);
+            this.out = compressing ? new GZIPOutputStream(file, BUFFER_BYTES) : file;
+            // The size of precompressed content is unknown
+            this.contentBytes = precompressed ? -1 : 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (contentBytes >= 0) {
+                contentBytes++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (contentBytes >= 0) {
+                contentBytes += len;
+            }
+        }
+
+        // Streams the source into the artifact until it ends. Content that is stored as is (uncompressed stores,
+        // precompressed content) goes from the source into the file with FileChannel.transferFrom; content to
+        // compress is copied through the gzip stream.
+        public long transferFrom(ReadableByteChannel source) throws IOException {
+            if (compressing) {
+                InputStream in = Channels.newInputStream(source);
+                byte[] buffer = new byte[BUFFER_BYTES];
+                long total = 0;
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    write(buffer, 0, read);
+                    total += read;
+                }
+                return total;
+            }
+
+            out.flush();
+            long start = channel.position();
+            long position = start;
+            long transferred;
+            // A blocking source only transfers nothing at its end
+            while ((transferred = channel.transferFrom(source, position, BUFFER_BYTES * 16L)) > 0) {
+                position += transferred;
+            }
+            channel.position(position);
+            if (contentBytes >= 0) {
+                contentBytes += position - start;
+            }
+            return position - start;
+        }
+
+        // Bytes written before compression; -1 for precompressed content
+        public long getContentBytes() {
+            return contentBytes;
+        }
+
+        // Finishes the artifact, adds it to the manifest and applies the retention; returns the stored file
+        public Path commit() throws IOException {
+            closed = true;
+            out.close();
+            record(name, tempFile, contentBytes);
+            committed = true;
+            return directory.resolve(fileName(name));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+            if (!committed) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process stand-in for the Digital.ai cloud, so tests can run without network access or devices.
+ *
+ * It answers the W3C WebDriver protocol under /wd/hub (sessions, elements, executeScript with the
+ * seetest:client.* and mobile: commands used in this project), the application upload API
+ * (/api/v1/applications) and the Reporter API (/reporter/api/transactions/{id} and /har). Build URLs under
+ * /builds/ answer HEAD requests like the S3 bucket the builds normally come from.
+ *
+ * Every request waits a configurable latency (with jitter) and fails with the configured probability, so the
+ * client-side code paths can be profiled under realistic delays and error handling can be exercised. Generated
+ * metrics and HAR files only depend on the seed, the transaction name and how often it ran, so runs are
+ * repeatable.
+ *
+ * Usually started by {@link CloudStubSuiteListener} through the offline suite.
+ */
+public class CloudStubServer implements AutoCloseable {
+
+    private static final String ELEMENT_KEY = "element-6066-11e4-a52e-4f735466cecf";
+    private static final Pattern SESSION_PATH = Pattern.compile("/wd/hub/session/([^/]+)(/.*)?");
+    private static final Pattern TRANSACTION_PATH = Pattern.compile("/reporter/api/transactions/([^/]+)(/har)?");
+    private static final Pattern MULTIPART_FIELD = Pattern.compile("name=\"([^\"]+)\"\\r\\n\\r\\n([^\\r]*)");
+    private static final String[] HAR_HOSTS = {"api.experibank.example", "cdn.experibank.example", "metrics.example.net"};
+    private static final String[] HAR_MIME_TYPES = {"application/json", "image/png", "text/html", "application/javascript"};
+    // 1x1 transparent PNG
+    private static final String SCREENSHOT_PNG = "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR42mNkYAAAAAYAAjCB0C8AAAAASUVORK5CYII=";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final long sessionLatencyMillis;
+    private final double failureRate;
+    private final long transactionReadyMillis;
+    private final long seed;
+
+    private final Map<String, Map<String, Object>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Long> transactionStarts = new ConcurrentHashMap<>();
+    private final Map<String, StubTransaction> transactions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> transactionRuns = new ConcurrentHashMap<>();
+    private final Map<String, Long> applications = new ConcurrentHashMap<>();
+    private final AtomicLong elementIds = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedFailures = new AtomicLong();
+
+    public CloudStubServer(long latencyMillis, long jitterMillis, long sessionLatencyMillis, double failureRate,
+                           long transactionReadyMillis, long seed) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.sessionLatencyMillis = sessionLatencyMillis;
+        this.failureRate = failureRate;
+        this.transactionReadyMillis = transactionReadyMillis;
+        this.seed = seed;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // Requests sleep to simulate latency, so each one gets its own thread
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cloud-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    // Stub configured through the STUB_* settings of EnvironmentConfig
+    public static CloudStubServer startFromConfig() throws IOException {
+        return new CloudStubServer(EnvironmentConfig.getStubLatencyMillis(), EnvironmentConfig.getStubLatencyJitterMillis(),
+                EnvironmentConfig.getStubSessionLatencyMillis(), EnvironmentConfig.getStubFailureRate(),
+                EnvironmentConfig.getStubTransactionReadyMillis(), EnvironmentConfig.getStubSeed());
+    }
+
+    // Base URL of the stub, e.g. http://127.0.0.1:51234 (the WebDriver endpoint is below /wd/hub)
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getInjectedFailures() {
+        return injectedFailures.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            boolean newSession = "POST".equals(method) && "/wd/hub/session".equals(path);
+            simulateLatency(newSession ? sessionLatencyMillis : latencyMillis);
+
+            // Quitting is never failed, so injected failures do not leak sessions
+            boolean quit = "DELETE".equals(method) && SESSION_PATH.matcher(path).matches();
+            if (!quit && failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                injectedFailures.incrementAndGet();
+                sendJson(exchange, 500, webDriverError("unknown error", "Failure injected by CloudStubServer"));
+                return;
+            }
+
+            if (path.startsWith("/wd/hub/")) {
+                handleWebDriver(exchange, method, path);
+            } else if (path.startsWith("/api/v1/applications")) {
+                handleApplications(exchange, method);
+            } else if (path.startsWith("/reporter/api/transactions/")) {
+                handleReporter(exchange, path);
+            } else if (path.startsWith("/builds/")) {
+                exchange.getResponseHeaders().set("ETag", "\"stub-" + path.substring("/builds/".length()) + "\"");
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                sendJson(exchange, 404, Collections.singletonMap("message", "Unknown path " + path));
+            }
+        } catch (Exception e) {
+            System.err.println("CloudStubServer - " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed: " + e);
+            sendJson(exchange, 500, webDriverError("unknown error", String.valueOf(e.getMessage())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void simulateLatency(long baseMillis) {
+        long delay = baseMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ---- WebDriver ----
+
+    @SuppressWarnings("unchecked")
+    private void handleWebDriver(HttpExchange exchange, String method, String path) throws IOException {
+        if ("/wd/hub/session".equals(path) && "POST".equals(method)) {
+            Map<String, Object> body = readJson(exchange);
+            Map<String, Object> requested = (Map<String, Object>) body.getOrDefault("capabilities", Collections.emptyMap());
+            Map<String, Object> capabilities = new LinkedHashMap<>((Map<String, Object>) requested.getOrDefault("alwaysMatch", Collections.emptyMap()));
+            List<Map<String, Object>> firstMatch = (List<Map<String, Object>>) requested.get("firstMatch");
+            if (firstMatch != null && !firstMatch.isEmpty()) {
+                capabilities.putAll(firstMatch.get(0));
+            }
+            capabilities.putIfAbsent("deviceName", "Stub Device");
+            capabilities.putIfAbsent("deviceModel", "Stub " + capabilities.getOrDefault("platformName", "Device"));
+
+            String sessionId = UUID.randomUUID().toString();
+            sessions.put(sessionId, capabilities);
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("sessionId", sessionId);
+            value.put("capabilities", capabilities);
+            sendValue(exchange, value);
+            return;
+        }
+
+        Matcher matcher = SESSION_PATH.matcher(path);
+        if (!matcher.matches() || !sessions.containsKey(matcher.group(1))) {
+            sendJson(exchange, 404, webDriverError("invalid session id", "No such session: " + path));
+            return;
+        }
+        String sessionId = matcher.group(1);
+        String command = matcher.group(2) != null ? matcher.group(2) : "";
+
+        if (command.isEmpty() && "DELETE".equals(method)) {
+            sessions.remove(sessionId);
+            transactionStarts.remove(sessionId);
+            sendValue(exchange, null);
+        } else if (command.matches("(/element/[^/]+)?/element") && "POST".equals(method)) {
+            sendValue(exchange, newElement());
+        } else if (command.matches("(/element/[^/]+)?/elements") && "POST".equals(method)) {
+            sendValue(exchange, Collections.singletonList(newElement()));
+        } else if (command.startsWith("/execute/")) {
+            Map<String, Object> body = readJson(exchange);
+            sendValue(exchange, executeScript(sessionId, String.valueOf(body.get("script")), (List<Object>) body.get("args")));
+        } else if (command.matches("/element/[^/]+/(displayed|enabled)")) {
+            sendValue(exchange, true);
+        } else if (command.matches("/element/[^/]+/selected")) {
+            sendValue(exchange, false);
+        } else if (command.matches("/element/[^/]+/text")) {
+            sendValue(exchange, "");
+        } else if (command.matches("/element/[^/]+/rect")) {
+            Map<String, Object> rect = new LinkedHashMap<>();
+            rect.put("x", 0);
+            rect.put("y", 0);
+            rect.put("width", 100);
+            rect.put("height", 40);
+            sendValue(exchange, rect);
+        } else if ("/screenshot".equals(command)) {
+            sendValue(exchange, SCREENSHOT_PNG);
+        } else if ("/source".equals(command)) {
+            sendValue(exchange, "<hierarchy/>");
+        } else {
+            // Clicks, sendKeys, orientation, timeouts... have no result
+            readBody(exchange);
+            sendValue(exchange, null);
+        }
+    }
+
+    private Map<String, Object> newElement() {
+        return Collections.singletonMap(ELEMENT_KEY, "stub-element-" + elementIds.incrementAndGet());
+    }
+
+    private Object executeScript(String sessionId, String script, List<Object> args) {
+        Object firstArg = args != null && !args.isEmpty() ? args.get(0) : null;
+        switch (script) {
+            case "seetest:client.startPerformanceTransaction":
+            case "seetest:client.startPerformanceTransactionForApplication":
+                transactionStarts.put(sessionId, System.currentTimeMillis());
+                return null;
+            case "seetest:client.endPerformanceTransaction":
+                return endTransaction(sessionId, String.valueOf(firstArg));
+            case "mobile: queryAppState":
+                // Running in foreground
+                return 4;
+            case "mobile: terminateApp":
+                return true;
+            case "mobile: axeScan":
+                return axeScanResult();
+            default:
+                // seetest:client.report, addTestProperty, steps groups, setReportStatus...
+                return null;
+        }
+    }
+
+    private String endTransaction(String sessionId, String name) {
+        Map<String, Object> session = sessions.get(sessionId);
+        Long startMillis = transactionStarts.remove(sessionId);
+        long durationMillis = startMillis != null ? System.currentTimeMillis() - startMillis : 0;
+        int run = transactionRuns.computeIfAbsent(name, key -> new AtomicInteger()).getAndIncrement();
+        String transactionId = UUID.randomUUID().toString();
+        StubTransaction transaction = new StubTransaction(transactionId, name, String.valueOf(session.get("platformName")),
+                System.currentTimeMillis(), durationMillis, new Random(seed * 31 + name.hashCode() * 17L + run));
+        transactions.put(transactionId, transaction);
+
+        Map<String, Object> text = new LinkedHashMap<>();
+        text.put("transactionId", transactionId);
+        text.put("transactionName", name);
+        text.put("appName", "com.experitest.ExperiBank");
+        text.put("appVersion", "1.0");
+        text.put("link", getBaseUrl() + "/reporter/transactions/" + transactionId);
+        try {
+            return objectMapper.writeValueAsString(Collections.singletonMap("text", objectMapper.writeValueAsString(text)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Minimal axe DevTools for Mobile result with one failing and one passing rule
+    private Map<String, Object> axeScanResult() {
+        List<Map<String, Object>> rules = new ArrayList<>();
+        rules.add(axeRule("color-contrast", "FAIL", "MODERATE", "com.experitest.ExperiBank:id/loginButton"));
+        rules.add(axeRule("touch-size-wcag", "PASS", "NONE", "com.experitest.ExperiBank:id/usernameTextField"));
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("axeRuleResults", rules);
+        result.put("axeMetaData", Collections.singletonMap("screenTitle", "LoginActivity"));
+        return result;
+    }
+
+    private static Map<String, Object> axeRule(String ruleId, String status, String impact, String resourceId) {
+        Map<String, Object> rule = new LinkedHashMap<>();
+        rule.put("ruleId", ruleId);
+        rule.put("status", status);
+        rule.put("impact", impact);
+        rule.put("props", Collections.singletonMap("viewIdResourceName", resourceId));
+        return rule;
+    }
+
+    // ---- Application upload API ----
+
+    private void handleApplications(HttpExchange exchange, String method) throws IOException {
+        if ("GET".equals(method)) {
+            List<Map<String, Object>> list = new ArrayList<>();
+            for (Map.Entry<String, Long> application : applications.entrySet()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", application.getValue());
+                entry.put("uniqueName", application.getKey());
+                list.add(entry);
+            }
+            sendJson(exchange, 200, list);
+            return;
+        }
+
+        String uniqueName = readFormFields(exchange).get("uniqueName");
+        if (uniqueName == null) {
+            sendJson(exchange, 400, Collections.singletonMap("message", "uniqueName is required"));
+        } else if (applications.putIfAbsent(uniqueName, (long) applications.size() + 1) != null) {
+            sendJson(exchange, 200, Collections.singletonMap("message", "Application already exists"));
+        } else {
+            sendJson(exchange, 200, Collections.singletonMap("status", "SUCCESS"));
+        }
+    }
+
+    // ---- Reporter API ----
+
+    private void handleReporter(HttpExchange exchange, String path) throws IOException {
+        Matcher matcher = TRANSACTION_PATH.matcher(path);
+        StubTransaction transaction = matcher.matches() ? transactions.get(matcher.group(1)) : null;
+        if (transaction == null) {
+            sendJson(exchange, 404, Collections.singletonMap("message", "Transaction not found"));
+            return;
+        }
+        if (matcher.group(2) != null) {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            sendBytes(exchange, 200, objectMapper.writeValueAsBytes(transaction.har),
+                    acceptEncoding != null && acceptEncoding.contains("gzip"));
+            return;
+        }
+        // The reporter aggregates the metrics a while after the transaction ended
+        boolean ready = System.currentTimeMillis() - transaction.endedAtMillis >= transactionReadyMillis;
+        sendJson(exchange, 200, ready ? transaction.metrics : transaction.pendingMetrics());
+    }
+
+    // ---- HTTP helpers ----
+
+    private Map<String, Object> webDriverError(String error, String message) {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("error", error);
+        value.put("message", message);
+        value.put("stacktrace", "");
+        return Collections.singletonMap("value", value);
+    }
+
+    private void sendValue(HttpExchange exchange, Object value) throws IOException {
+        sendJson(exchange, 200, Collections.singletonMap("value", value));
+    }
+
+    private void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        sendBytes(exchange, status, objectMapper.writeValueAsBytes(body), false);
+    }
+
+    private void sendBytes(HttpExchange exchange, int status, byte[] body, boolean gzip) throws IOException {
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(body);
+            }
+            body = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readJson(HttpExchange exchange) throws IOException {
+        byte[] body = readBody(exchange);
+        return body.length == 0 ? new HashMap<>() : objectMapper.readValue(body, Map.class);
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Unirest sends string fields url-encoded, or as multipart when files are attached
+    private static Map<String, String> readFormFields(HttpExchange exchange) throws IOException {
+        String body = new String(readBody(exchange), StandardCharsets.UTF_8);
+        Map<String, String> fields = new HashMap<>();
+        String contentType = String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type"));
+        if (contentType.startsWith("multipart/")) {
+            Matcher matcher = MULTIPART_FIELD.matcher(body);
+            while (matcher.find()) {
+                fields.put(matcher.group(1), matcher.group(2));
+            }
+            return fields;
+        }
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                fields.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * A Performance Transaction ended on the stub, with its generated metrics and HAR file.
+     */
+    private static class StubTransaction {
+        private final long endedAtMillis;
+        private final Map<String, Object> metrics = new LinkedHashMap<>();
+        private final Map<String, Object> har;
+
+        private StubTransaction(String transactionId, String name, String platform, long endedAtMillis,
+                                long durationMillis, Random random) {
+            this.endedAtMillis = endedAtMillis;
+            metrics.put("transactionId", transactionId);
+            metrics.put("name", name);
+            metrics.put("platform", platform);
+            metrics.put("networkProfile", "4G-average");
+            metrics.put("duration", Math.max(durationMillis, 1500 + random.nextInt(1500)));
+            metrics.put("speedIndex", 800 + random.nextInt(400));
+            int cpuAvg = 10 + random.nextInt(20);
+            metrics.put("cpuAvg", cpuAvg);
+            metrics.put("cpuMax", cpuAvg + 10 + random.nextInt(30));
+            int memAvg = 150 + random.nextInt(50);
+            metrics.put("memAvg", memAvg);
+            metrics.put("memMax", memAvg + 20 + random.nextInt(40));
+            int batteryAvg = 50 + random.nextInt(100);
+            metrics.put("batteryAvg", batteryAvg);
+            metrics.put("batteryMax", batteryAvg + random.nextInt(100));
+            this.har = generateHar(endedAtMillis - durationMillis, 20 + random.nextInt(16), random);
+        }
+
+        // What the reporter returns before it has aggregated the metrics
+        private Map<String, Object> pendingMetrics() {
+            Map<String, Object> pending = new LinkedHashMap<>();
+            pending.put("transactionId", metrics.get("transactionId"));
+            pending.put("name", metrics.get("name"));
+            pending.put("networkProfile", metrics.get("networkProfile"));
+            return pending;
+        }
+
+        private static Map<String, Object> generateHar(long startMillis, int entryCount, Random random) {
+            List<Map<String, Object>> entries = new ArrayList<>();
+            long offset = 0;
+            for (int i = 0; i < entryCount; i++) {
+                offset += random.nextInt(150);
+                Map<String, Object> timings = new LinkedHashMap<>();
+                timings.put("blocked", random.nextInt(5));
+                timings.put("dns", i < HAR_HOSTS.length ? 10 + random.nextInt(30) : -1);
+                timings.put("connect", i < HAR_HOSTS.length ? 20 + random.nextInt(60) : -1);
+                timings.put("send", 1);
+                timings.put("wait", 40 + random.nextInt(300));
+                timings.put("receive", 5 + random.nextInt(80));
+                long time = 0;
+                for (Object phase : timings.values()) {
+                    time += Math.max(0, ((Number) phase).intValue());
+                }
+
+                String mimeType = HAR_MIME_TYPES[random.nextInt(HAR_MIME_TYPES.length)];
+                int size = 200 + random.nextInt(mimeType.startsWith("image/") ? 80_000 : 8_000);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("startedDateTime", Instant.ofEpochMilli(startMillis + offset).toString());
+                entry.put("time", time);
+                entry.put("request", harRequest("https://" + HAR_HOSTS[random.nextInt(HAR_HOSTS.length)] + "/resource/" + i));
+                entry.put("response", harResponse(random.nextInt(20) == 0 ? 500 : 200, size, mimeType));
+                entry.put("timings", timings);
+                entries.add(entry);
+            }
+            Map<String, Object> log = new LinkedHashMap<>();
+            log.put("version", "1.2");
+            log.put("creator", Collections.singletonMap("name", "CloudStubServer"));
+            log.put("entries", entries);
+            return Collections.singletonMap("log", log);
+        }
+
+        private static Map<String, Object> harRequest(String url) {
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("method", "GET");
+            request.put("url", url);
+            return request;
+        }
+
+        private static Map<String, Object> harResponse(int status, int size, String mimeType) {
+            Map<String, Object> content = new LinkedHashMap<>();
+            content.put("size", size);
+            content.put("mimeType", mimeType);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("status", status);
+            response.put("bodySize", size);
+            response.put("content", content);
+            return response;
+        }
+    }
+}
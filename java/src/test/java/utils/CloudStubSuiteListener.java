@@ -0,0 +1,75 @@
+package utils;
+
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a suite against an in-process {@link CloudStubServer} instead of the cloud.
+ *
+ * Add it as a listener of a suite (see offline_stub_tests.xml): it starts the stub before the first test and
+ * points CLOUD_URL, the device queries, the build URLs and the API keys to it through system properties, which
+ * take precedence over the environment and .env in EnvironmentConfig. Properties already set with -D are kept,
+ * except CLOUD_URL. Each parallel fork runs its own stub.
+ */
+public class CloudStubSuiteListener implements ISuiteListener {
+
+    private CloudStubServer server;
+    private final List<String> overriddenProperties = new ArrayList<>();
+
+    @Override
+    public void onStart(ISuite suite) {
+        try {
+            server = CloudStubServer.startFromConfig();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the cloud stub for suite " + suite.getName(), e);
+        }
+
+        String baseUrl = server.getBaseUrl();
+        setProperty("CLOUD_URL", baseUrl + "/wd/hub", true);
+
+        Map<String, String> defaults = new LinkedHashMap<>();
+        defaults.put("ACCESS_KEY", "stub-access-key");
+        defaults.put("ANDROID_DEVICE_QUERY", "@os='android'");
+        defaults.put("IOS_DEVICE_QUERY", "@os='ios'");
+        defaults.put("UNMODIFIED_BUILD_URL", baseUrl + "/builds/ExperiBank-unmodified.apk");
+        defaults.put("MODIFIED_BUILD_URL", baseUrl + "/builds/ExperiBank-modified.apk");
+        defaults.put("AXE_DEVTOOLS_API_KEY", "stub-axe-key");
+        // Every run gets a new port, so ledger entries would never be reused
+        defaults.put("UPLOAD_LEDGER_ENABLED", "false");
+        for (Map.Entry<String, String> entry : defaults.entrySet()) {
+            setProperty(entry.getKey(), entry.getValue(), false);
+        }
+
+        System.out.println("CloudStubSuiteListener - Suite " + suite.getName() + " runs against the cloud stub at " + baseUrl);
+    }
+
+    @Override
+    public void onFinish(ISuite suite) {
+        if (server == null) {
+            return;
+        }
+        System.out.println("CloudStubSuiteListener - Cloud stub served " + server.getRequestCount() + " requests ("
+                + server.getInjectedFailures() + " injected failures) for suite " + suite.getName());
+        // Idle pooled sessions belong to this stub and cannot be reused by a later suite
+        SessionPool.quitIdleSessions();
+        server.close();
+        server = null;
+        for (String key : overriddenProperties) {
+            System.clearProperty(key);
+        }
+        overriddenProperties.clear();
+    }
+
+    private void setProperty(String key, String value, boolean replace) {
+        if (replace || System.getProperty(key) == null) {
+            System.setProperty(key, value);
+            overriddenProperties.add(key);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package utils;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the latency of every WebDriver command of a test class into a {@link LatencyHistogram} per command
+ * and locator strategy (findElement(id), click, executeScript(seetest:client.report)...).
+ *
+ * Attach it to a driver created through {@link InstrumentedDrivers} and call dump() when the class is done:
+ * p50/p95/p99/max per command are written to reports/command-latency/&lt;test class&gt;.csv. Classes that were
+ * not dumped explicitly are dumped when the JVM exits.
+ */
+public class CommandLatencyListener implements DriverCommandListener {
+
+    private static final Path REPORTS_DIR = Paths.get("reports", "command-latency");
+    private static final Map<Class<?>, CommandLatencyListener> listeners = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(CommandLatencyListener::dumpAll, "command-latency-dump"));
+    }
+
+    private final Class<?> testClass;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Set<String> devices = ConcurrentHashMap.newKeySet();
+    private volatile boolean dirty;
+
+    private CommandLatencyListener(Class<?> testClass) {
+        this.testClass = testClass;
+    }
+
+    public static CommandLatencyListener forTestClass(Class<?> testClass) {
+        return listeners.computeIfAbsent(testClass, CommandLatencyListener::new);
+    }
+
+    // Records the driver's commands for this test class until detach; returns false if the driver is not instrumented
+    public boolean attach(RemoteWebDriver driver) {
+        devices.add(describeDevice(driver.getCapabilities()));
+        boolean attached = InstrumentedDrivers.addListener(driver, this);
+        if (!attached) {
+            System.out.println("CommandLatencyListener - Driver was not created through InstrumentedDrivers, no latencies recorded for "
+                    + testClass.getSimpleName());
+        }
+        return attached;
+    }
+
+    // Pooled sessions are reused by other test classes, so detach before releasing them
+    public void detach(RemoteWebDriver driver) {
+        InstrumentedDrivers.removeListener(driver, this);
+    }
+
+    @Override
+    public void afterCommand(Command command, Response response, long durationNanos) {
+        record(command, durationNanos);
+    }
+
+    @Override
+    public void onCommandError(Command command, Throwable error, long durationNanos) {
+        record(command, durationNanos);
+    }
+
+    private void record(Command command, long durationNanos) {
+        histograms.computeIfAbsent(InstrumentedDrivers.describe(command), key -> new LatencyHistogram()).recordNanos(durationNanos);
+        dirty = true;
+    }
+
+    public LatencyHistogram getHistogram(String command) {
+        return histograms.get(command);
+    }
+
+    // Writes the current percentiles to reports/command-latency/<test class>.csv and prints them
+    public synchronized void dump() {
+        dirty = false;
+        Map<String, LatencyHistogram> sorted = new TreeMap<>(histograms);
+        if (sorted.isEmpty()) {
+            return;
+        }
+
+        Path file = REPORTS_DIR.resolve(testClass.getName() + ".csv");
+        String deviceList = String.join(" / ", new ArrayList<>(devices));
+        try {
+            Files.createDirectories(REPORTS_DIR);
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                writer.write("command,count,p50_ms,p95_ms,p99_ms,max_ms,devices");
+                writer.newLine();
+                for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+                    LatencyHistogram histogram = entry.getValue();
+                    writer.write(String.format("%s,%d,%.1f,%.1f,%.1f,%.1f,\"%s\"", entry.getKey(), histogram.getCount(),
+                            histogram.getPercentileMillis(50), histogram.getPercentileMillis(95),
+                            histogram.getPercentileMillis(99), histogram.getMaxMillis(), deviceList.replace("\"", "'")));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("CommandLatencyListener - Could not write " + file + ": " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Command latency for " + testClass.getSimpleName() + " on " + deviceList + " (ms):");
+        System.out.println(String.format("  %-45s %6s %8s %8s %8s %8s", "command", "count", "p50", "p95", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> entry : sorted.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            System.out.println(String.format("  %-45s %6d %8.1f %8.1f %8.1f %8.1f", entry.getKey(), histogram.getCount(),
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(95),
+                    histogram.getPercentileMillis(99), histogram.getMaxMillis()));
+        }
+    }
+
+    private static void dumpAll() {
+        for (CommandLatencyListener listener : listeners.values()) {
+            if (listener.dirty) {
+                listener.dump();
+            }
+        }
+    }
+
+    private static String describeDevice(Capabilities capabilities) {
+        if (capabilities == null) {
+            return "unknown";
+        }
+        for (String name : new String[]{"deviceModel", "appium:deviceModel", "deviceName", "appium:deviceName"}) {
+            Object value = capabilities.getCapability(name);
+            if (value != null && !value.toString().isEmpty()) {
+                return value.toString();
+            }
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,19 @@
+package utils;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.Response;
+
+/**
+ * Receives every WebDriver command a driver created through {@link InstrumentedDrivers} sends to the cloud,
+ * including element commands (click, sendKeys...) and the findElement polls of WebDriverWait.
+ *
+ * Callbacks run on the thread issuing the command. Exceptions thrown by a listener are logged and ignored.
+ */
+public interface DriverCommandListener {
+
+    default void beforeCommand(Command command) {}
+
+    default void afterCommand(Command command, Response response, long durationNanos) {}
+
+    default void onCommandError(Command command, Throwable error, long durationNanos) {}
+}
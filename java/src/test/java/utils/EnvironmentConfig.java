@@ -61,6 +61,173 @@ public class EnvironmentConfig {
         }
         return apiKey;
     }
+
+    // off, report (print the diff against the baseline), fail (also fails the test on added violations) or update
+    public static String getAccessibilityBaselineMode() {
+        return getEnvVar("ACCESSIBILITY_BASELINE_MODE", "report").toLowerCase();
+    }
+
+    public static String getAccessibilityBaselineDir() {
+        return getEnvVar("ACCESSIBILITY_BASELINE_DIR", "src/test/resources/accessibility-baselines");
+    }
+
+    // Concurrent sessions (devices from the device query) of the multi-screen accessibility crawl
+    public static int getAccessibilityCrawlSessions() {
+        return getIntEnvVar("ACCESSIBILITY_CRAWL_SESSIONS", 2);
+    }
+
+    public static boolean isUploadLedgerEnabled() {
+        return Boolean.parseBoolean(getEnvVar("UPLOAD_LEDGER_ENABLED", "true"));
+    }
+
+    public static int getUploadLedgerTtlMinutes() {
+        return getIntEnvVar("UPLOAD_LEDGER_TTL_MINUTES", 60);
+    }
+
+    public static int getUploadExecutorThreads() {
+        return getIntEnvVar("UPLOAD_EXECUTOR_THREADS", 4);
+    }
+
+    public static int getPerformanceTransactionReadyTimeoutSeconds() {
+        return getIntEnvVar("PERF_TRANSACTION_READY_TIMEOUT_SECONDS", 30);
+    }
+
+    public static boolean isPerformanceMetricsStoreEnabled() {
+        return Boolean.parseBoolean(getEnvVar("PERF_METRICS_STORE_ENABLED", "true"));
+    }
+
+    // off, flag (failed report step) or fail (failed report step and failed test)
+    public static String getPerformanceRegressionMode() {
+        return getEnvVar("PERF_REGRESSION_MODE", "flag").toLowerCase();
+    }
+
+    public static List<String> getPerformanceRegressionMetrics() {
+        List<String> metrics = new ArrayList<>();
+        for (String metric : getEnvVar("PERF_REGRESSION_METRICS", "speedIndex,memMax").split(",")) {
+            if (!metric.trim().isEmpty()) {
+                metrics.add(metric.trim());
+            }
+        }
+        return metrics;
+    }
+
+    public static int getPerformanceRegressionWindow() {
+        return getIntEnvVar("PERF_REGRESSION_WINDOW", 20);
+    }
+
+    public static int getPerformanceRegressionMinBaseline() {
+        return getIntEnvVar("PERF_REGRESSION_MIN_BASELINE", 5);
+    }
+
+    public static int getPerformanceRegressionMadMultiplier() {
+        return getIntEnvVar("PERF_REGRESSION_MAD_MULTIPLIER", 3);
+    }
+
+    public static int getPerformanceRegressionMinIncreasePercent() {
+        return getIntEnvVar("PERF_REGRESSION_MIN_INCREASE_PERCENT", 10);
+    }
+
+    // Budget file path; empty uses perf-transaction/performance_budgets.json from the test resources
+    public static String getPerformanceBudgetFile() {
+        return getEnvVar("PERF_BUDGET_FILE", "");
+    }
+
+    // off, report (setReportStatus Failed) or fail (also fails the test in assertWithinBudget)
+    public static String getPerformanceBudgetMode() {
+        return getEnvVar("PERF_BUDGET_MODE", "report").toLowerCase();
+    }
+
+    public static int getReporterHttpMaxConnections() {
+        return getIntEnvVar("REPORTER_HTTP_MAX_CONNECTIONS", 8);
+    }
+
+    public static boolean isHarDownloadGzipEnabled() {
+        return Boolean.parseBoolean(getEnvVar("HAR_DOWNLOAD_GZIP", "true"));
+    }
+
+    // gzip (default) or none, for accessibility reports and HAR files
+    public static String getArtifactCompression() {
+        return getEnvVar("ARTIFACT_COMPRESSION", "gzip").toLowerCase();
+    }
+
+    // Per artifact directory (reports/accessibility, har_files)
+    public static int getArtifactRetentionMaxMb() {
+        return getIntEnvVar("ARTIFACT_RETENTION_MAX_MB", 1024);
+    }
+
+    public static int getArtifactRetentionMaxAgeDays() {
+        return getIntEnvVar("ARTIFACT_RETENTION_MAX_AGE_DAYS", 14);
+    }
+
+    public static boolean isReportBufferingEnabled() {
+        return Boolean.parseBoolean(getEnvVar("REPORT_BUFFERING_ENABLED", "true"));
+    }
+
+    // Runner metrics endpoint (http://localhost:<port>/metrics), 0 disables it
+    public static int getMetricsPort() {
+        return getIntEnvVar("METRICS_PORT", 0);
+    }
+
+    // Directory for the node_exporter textfile collector, empty disables it
+    public static String getMetricsTextfileDir() {
+        return getEnvVar("METRICS_TEXTFILE_DIR", "");
+    }
+
+    public static int getMetricsTextfileIntervalSeconds() {
+        return Math.max(1, getIntEnvVar("METRICS_TEXTFILE_INTERVAL_SECONDS", 15));
+    }
+
+    // Cloud stub of the offline suite (CloudStubServer): latency of every request, plus up to the jitter
+    public static int getStubLatencyMillis() {
+        return getIntEnvVar("STUB_LATENCY_MS", 50);
+    }
+
+    public static int getStubLatencyJitterMillis() {
+        return getIntEnvVar("STUB_LATENCY_JITTER_MS", 30);
+    }
+
+    public static int getStubSessionLatencyMillis() {
+        return getIntEnvVar("STUB_SESSION_LATENCY_MS", 2000);
+    }
+
+    // Probability (0..1) that a request fails with an HTTP 500
+    public static double getStubFailureRate() {
+        return getDoubleEnvVar("STUB_FAILURE_RATE", 0);
+    }
+
+    // Time after the end of a Performance Transaction until its metrics are reported as aggregated
+    public static int getStubTransactionReadyMillis() {
+        return getIntEnvVar("STUB_TRANSACTION_READY_MS", 1500);
+    }
+
+    public static int getStubSeed() {
+        return getIntEnvVar("STUB_SEED", 42);
+    }
+
+    public static boolean isSessionPoolEnabled() {
+        return Boolean.parseBoolean(getEnvVar("SESSION_POOL_ENABLED", "true"));
+    }
+
+    public static int getSessionPoolMaxIdlePerKey() {
+        return getIntEnvVar("SESSION_POOL_MAX_IDLE_PER_KEY", 2);
+    }
+
+    public static int getSessionPoolMaxIdleSeconds() {
+        return getIntEnvVar("SESSION_POOL_MAX_IDLE_SECONDS", 240);
+    }
+
+    public static boolean isSessionPrewarmEnabled() {
+        return Boolean.parseBoolean(getEnvVar("SESSION_PREWARM_ENABLED", "true"));
+    }
+
+    public static int getSessionStandbyTtlSeconds() {
+        return getIntEnvVar("SESSION_STANDBY_TTL_SECONDS", 120);
+    }
+
+    // Standby sessions provisioned at once; each one reserves a device from the device query
+    public static int getSessionPrewarmMaxParallel() {
+        return getIntEnvVar("SESSION_PREWARM_MAX_PARALLEL", 2);
+    }
     
     private static String getDeviceQuery(String platform) {
         String customQuery = getEnvVar(platform.toUpperCase() + "_DEVICE_QUERY", "");
@@ -69,7 +236,8 @@ public class EnvironmentConfig {
         return customQuery;
     }
     
-    private static void validateDeviceQuery(String query, String platform) {
+    // Package-private for the JMH benchmarks (src/jmh)
+    static void validateDeviceQuery(String query, String platform) {
         if (query == null || query.trim().isEmpty()) {
             throw new RuntimeException("Device query cannot be empty for platform: " + platform);
         }
@@ -104,9 +272,35 @@ public class EnvironmentConfig {
         System.out.println("Device query validated for " + platform + ": " + query);
     }
     
+    private static int getIntEnvVar(String key, int defaultValue) {
+        String value = getEnvVar(key, String.valueOf(defaultValue));
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: " + key + " is not a valid integer (" + value + "), using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static double getDoubleEnvVar(String key, double defaultValue) {
+        String value = getEnvVar(key, String.valueOf(defaultValue));
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Warning: " + key + " is not a valid number (" + value + "), using default: " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     private static String getEnvVar(String key, String defaultValue) {
-        // First check system environment variables
-        String value = System.getenv(key);
+        // System properties override everything, e.g. the cloud stub of the offline suite points CLOUD_URL to itself
+        String value = System.getProperty(key);
+        if (value != null && !value.trim().isEmpty()) {
+            return value.trim();
+        }
+
+        // Then check system environment variables
+        value = System.getenv(key);
         if (value != null && !value.trim().isEmpty()) {
             return value.trim();
         }
@@ -0,0 +1,136 @@
+package utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by the tests and utilities of this project.
+ *
+ * They show up under "Appium Code Examples" in JDK Mission Control when the test JVMs are recorded, e.g. with
+ * ./gradlew test -Pjfr (see build.gradle) or -XX:StartFlightRecording. When no recording is running, creating
+ * and committing an event costs next to nothing, so they are always emitted.
+ */
+public final class FlightRecorderEvents {
+
+    private static final String CATEGORY = "Appium Code Examples";
+
+    private FlightRecorderEvents() {}
+
+    @Name("appium.SessionCreation")
+    @Label("Session Creation")
+    @Description("New Appium session, from the new session request until the driver is ready")
+    @Category({CATEGORY, "Sessions"})
+    public static final class SessionCreation extends Event {
+        @Label("Platform")
+        public String platform;
+
+        @Label("Capability Fingerprint")
+        @Description("Sessions with the same fingerprint can be reused by the session pool")
+        public String fingerprint;
+
+        @Label("Session Id")
+        public String sessionId;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+
+    @Name("appium.DriverCommand")
+    @Label("Driver Command")
+    @Description("WebDriver command sent to the cloud by an instrumented driver")
+    @Category({CATEGORY, "Sessions"})
+    // Emitted for every command; the stack trace would dominate the recording size
+    @StackTrace(false)
+    public static final class DriverCommand extends Event {
+        @Label("Command")
+        public String command;
+
+        @Label("Session Id")
+        public String sessionId;
+
+        @Label("Failed")
+        public boolean failed;
+    }
+
+    @Name("appium.ApplicationUpload")
+    @Label("Application Upload")
+    @Description("Upload of an application build to the cloud, including ledger checks and waits on concurrent uploads")
+    @Category({CATEGORY, "Cloud API"})
+    public static final class ApplicationUpload extends Event {
+        @Label("Unique Name")
+        public String uniqueName;
+
+        @Label("Status")
+        public String status;
+
+        @Label("From Ledger")
+        @Description("Skipped because the upload ledger knew the build is present")
+        public boolean fromLedger;
+    }
+
+    @Name("appium.ReporterApiCall")
+    @Label("Reporter API Call")
+    @Description("Request to the Reporter API, e.g. to read a Performance Transaction")
+    @Category({CATEGORY, "Cloud API"})
+    public static final class ReporterApiCall extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Status Code")
+        public int statusCode;
+    }
+
+    @Name("appium.HarDownload")
+    @Label("HAR Download")
+    @Description("Download of the HAR file of a Performance Transaction")
+    @Category({CATEGORY, "Cloud API"})
+    public static final class HarDownload extends Event {
+        @Label("File")
+        public String file;
+
+        @Label("Status Code")
+        public int statusCode;
+
+        @Label("Bytes Written")
+        @DataAmount
+        public long bytes;
+
+        @Label("Gzip")
+        public boolean gzip;
+    }
+
+    @Name("appium.PerformanceTransaction")
+    @Label("Performance Transaction")
+    @Description("Performance Transaction capture, from start to end of capturing")
+    @Category({CATEGORY, "Performance Transactions"})
+    public static final class PerformanceTransaction extends Event {
+        @Label("Transaction Name")
+        public String transactionName;
+
+        @Label("Transaction Id")
+        public String transactionId;
+
+        @Label("Network Profile")
+        public String nvProfile;
+
+        @Label("Capture Level")
+        public String captureLevel;
+    }
+
+    @Name("appium.AccessibilityScan")
+    @Label("Accessibility Scan")
+    @Description("mobile: axeScan command of an instrumented driver")
+    @Category({CATEGORY, "Accessibility"})
+    public static final class AccessibilityScan extends Event {
+        @Label("Session Id")
+        public String sessionId;
+
+        @Label("Succeeded")
+        public boolean succeeded;
+    }
+}
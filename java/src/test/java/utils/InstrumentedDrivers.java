@@ -0,0 +1,220 @@
+package utils;
+
+import io.appium.java_client.MobileCommand;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.ios.IOSDriver;
+import io.appium.java_client.remote.AppiumCommandExecutor;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Creates Appium drivers whose WebDriver commands can be observed by {@link DriverCommandListener}s.
+ *
+ * The drivers keep their concrete type (AndroidDriver / IOSDriver), so they are a drop-in replacement for
+ * new AndroidDriver(url, options). Commands are timed in the command executor, the single point every driver
+ * and element command passes through on its way to the cloud. Global listeners see the commands of every
+ * instrumented driver; driver listeners only those of one driver.
+ */
+public class InstrumentedDrivers {
+
+    private static final List<DriverCommandListener> globalListeners = new CopyOnWriteArrayList<>();
+    private static final Pattern VENDOR_SCRIPT = Pattern.compile("[A-Za-z]+:\\s?[\\w.]+");
+    private static final Pattern ACCESSIBILITY_SCAN = Pattern.compile("mobile:\\s?axeScan");
+
+    private InstrumentedDrivers() {}
+
+    public static AndroidDriver newAndroidDriver(URL cloudUrl, Capabilities options) {
+        return createSession("Android", options, () -> new AndroidDriver(new ListeningCommandExecutor(cloudUrl, "Android"), options));
+    }
+
+    public static IOSDriver newIOSDriver(URL cloudUrl, Capabilities options) {
+        return createSession("iOS", options, () -> new IOSDriver(new ListeningCommandExecutor(cloudUrl, "iOS"), options));
+    }
+
+    private static <T extends RemoteWebDriver> T createSession(String platform, Capabilities options, Supplier<T> factory) {
+        FlightRecorderEvents.SessionCreation event = new FlightRecorderEvents.SessionCreation();
+        event.begin();
+        long startNanos = System.nanoTime();
+        RunnerMetrics.SESSIONS_PENDING.inc(platform);
+        try {
+            T driver = factory.get();
+            event.succeeded = true;
+            event.sessionId = String.valueOf(driver.getSessionId());
+            RunnerMetrics.SESSIONS_OPEN.inc(platform);
+            return driver;
+        } finally {
+            RunnerMetrics.SESSIONS_PENDING.dec(platform);
+            RunnerMetrics.SESSION_CREATION_SECONDS.observeNanos(System.nanoTime() - startNanos, platform,
+                    event.succeeded ? "created" : "failed");
+            if (event.shouldCommit()) {
+                event.platform = platform;
+                event.fingerprint = SessionPool.fingerprint(options);
+                event.commit();
+            }
+        }
+    }
+
+    public static void addGlobalListener(DriverCommandListener listener) {
+        globalListeners.add(listener);
+    }
+
+    public static void removeGlobalListener(DriverCommandListener listener) {
+        globalListeners.remove(listener);
+    }
+
+    // Returns false if the driver was not created through this class, in which case nothing is recorded
+    public static boolean addListener(RemoteWebDriver driver, DriverCommandListener listener) {
+        if (driver.getCommandExecutor() instanceof ListeningCommandExecutor) {
+            ((ListeningCommandExecutor) driver.getCommandExecutor()).listeners.add(listener);
+            return true;
+        }
+        return false;
+    }
+
+    public static void removeListener(RemoteWebDriver driver, DriverCommandListener listener) {
+        if (driver.getCommandExecutor() instanceof ListeningCommandExecutor) {
+            ((ListeningCommandExecutor) driver.getCommandExecutor()).listeners.remove(listener);
+        }
+    }
+
+    public static boolean isInstrumented(RemoteWebDriver driver) {
+        return driver.getCommandExecutor() instanceof ListeningCommandExecutor;
+    }
+
+    // Command name plus what distinguishes similar commands: findElement(id), executeScript(seetest:client.report)...
+    public static String describe(Command command) {
+        String name = command.getName();
+        Map<String, ?> parameters = command.getParameters();
+        if (parameters == null) {
+            return name;
+        }
+        Object using = parameters.get("using");
+        if (using != null) {
+            return name + "(" + using + ")";
+        }
+        Object script = parameters.get("script");
+        if (script != null) {
+            // Vendor commands such as "seetest:client.report" or "mobile: scroll" are named; page scripts are not
+            String text = script.toString();
+            return name + "(" + (VENDOR_SCRIPT.matcher(text).matches() ? text : "script") + ")";
+        }
+        return name;
+    }
+
+    private static class ListeningCommandExecutor extends AppiumCommandExecutor {
+
+        private final List<DriverCommandListener> listeners = new CopyOnWriteArrayList<>();
+        private final String platform;
+
+        private ListeningCommandExecutor(URL cloudUrl, String platform) {
+            super(MobileCommand.commandRepository, cloudUrl);
+            this.platform = platform;
+        }
+
+        @Override
+        public Response execute(Command command) throws WebDriverException {
+            FlightRecorderEvents.DriverCommand event = new FlightRecorderEvents.DriverCommand();
+            FlightRecorderEvents.AccessibilityScan scanEvent = isAccessibilityScan(command) ? new FlightRecorderEvents.AccessibilityScan() : null;
+            event.begin();
+            if (scanEvent != null) {
+                scanEvent.begin();
+            }
+            long startNanos = System.nanoTime();
+            boolean failed = true;
+            try {
+                Response response = executeWithListeners(command);
+                failed = false;
+                return response;
+            } finally {
+                updateMetrics(command, System.nanoTime() - startNanos, failed);
+                commitEvents(command, event, scanEvent, failed);
+            }
+        }
+
+        private void updateMetrics(Command command, long durationNanos, boolean failed) {
+            // The new session command is counted by createSession
+            if (DriverCommand.NEW_SESSION.equals(command.getName())) {
+                return;
+            }
+            RunnerMetrics.COMMAND_SECONDS.observeNanos(durationNanos, command.getName());
+            if (failed) {
+                RunnerMetrics.COMMAND_FAILURES.inc(command.getName());
+            }
+            // A failed quit still ends the session as far as this JVM is concerned
+            if (DriverCommand.QUIT.equals(command.getName())) {
+                RunnerMetrics.SESSIONS_OPEN.dec(platform);
+            }
+        }
+
+        private Response executeWithListeners(Command command) {
+            if (globalListeners.isEmpty() && listeners.isEmpty()) {
+                return super.execute(command);
+            }
+
+            forEachListener(listener -> listener.beforeCommand(command));
+            long startNanos = System.nanoTime();
+            Response response;
+            try {
+                response = super.execute(command);
+            } catch (RuntimeException e) {
+                long durationNanos = System.nanoTime() - startNanos;
+                forEachListener(listener -> listener.onCommandError(command, e, durationNanos));
+                throw e;
+            }
+            long durationNanos = System.nanoTime() - startNanos;
+            forEachListener(listener -> listener.afterCommand(command, response, durationNanos));
+            return response;
+        }
+
+        private static void commitEvents(Command command, FlightRecorderEvents.DriverCommand event,
+                                         FlightRecorderEvents.AccessibilityScan scanEvent, boolean failed) {
+            // Fields are only filled in while a recording is running, so commands cost nothing extra otherwise
+            if (event.shouldCommit()) {
+                event.command = describe(command);
+                event.sessionId = String.valueOf(command.getSessionId());
+                event.failed = failed;
+                event.commit();
+            }
+            if (scanEvent != null && scanEvent.shouldCommit()) {
+                scanEvent.sessionId = String.valueOf(command.getSessionId());
+                scanEvent.succeeded = !failed;
+                scanEvent.commit();
+            }
+        }
+
+        private static boolean isAccessibilityScan(Command command) {
+            Map<String, ?> parameters = command.getParameters();
+            Object script = parameters != null ? parameters.get("script") : null;
+            return script != null && ACCESSIBILITY_SCAN.matcher(script.toString()).matches();
+        }
+
+        private void forEachListener(Consumer<DriverCommandListener> callback) {
+            for (List<DriverCommandListener> group : Arrays.asList(globalListeners, listeners)) {
+                for (DriverCommandListener listener : group) {
+                    try {
+                        callback.accept(listener);
+                    } catch (RuntimeException e) {
+                        logListenerFailure(listener, e);
+                    }
+                }
+            }
+        }
+
+        private static void logListenerFailure(DriverCommandListener listener, RuntimeException e) {
+            System.err.println("InstrumentedDrivers - Listener " + listener.getClass().getSimpleName() + " failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package utils;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
+import org.testng.ITestNGMethod;
+import org.testng.ITestResult;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the test method invocations of each test class that have not started yet.
+ *
+ * SessionPreProvisioner only opens a standby session when another test method of the running class is still
+ * pending, so the last test of a class does not reserve a device for nobody. Add it as a listener of a suite
+ * (see testng.xml); without it the remaining count is unknown and no standby session is opened.
+ */
+public class PendingTestMethods implements ISuiteListener, IInvokedMethodListener {
+
+    private static final Map<Class<?>, AtomicInteger> pendingByClass = new ConcurrentHashMap<>();
+    // Test class of the test or configuration method running on this thread
+    private static final ThreadLocal<Class<?>> currentClass = new ThreadLocal<>();
+    private static volatile boolean registered;
+
+    @Override
+    public void onStart(ISuite suite) {
+        registered = true;
+        for (ITestNGMethod method : suite.getAllMethods()) {
+            if (method.isTest()) {
+                pendingByClass.computeIfAbsent(method.getRealClass(), key -> new AtomicInteger())
+                        .addAndGet(Math.max(method.getInvocationCount(), 1));
+            }
+        }
+    }
+
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        Class<?> testClass = method.getTestMethod().getRealClass();
+        currentClass.set(testClass);
+        if (method.isTestMethod()) {
+            AtomicInteger pending = pendingByClass.get(testClass);
+            if (pending != null) {
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    // Test methods of the running class not started yet, including the one whose @BeforeMethod is running; -1 if unknown
+    public static int remainingInCurrentClass() {
+        Class<?> testClass = currentClass.get();
+        if (!registered || testClass == null) {
+            return -1;
+        }
+        AtomicInteger pending = pendingByClass.get(testClass);
+        return pending == null ? -1 : pending.get();
+    }
+}
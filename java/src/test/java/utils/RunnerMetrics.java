@@ -0,0 +1,338 @@
+package utils;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Live metrics of the test runner JVM in the Prometheus text exposition format.
+ *
+ * The utilities of this project (session creation, session pool, uploads, PerformanceHelpers) update the metrics
+ * below as they go. They are exposed while the tests run:
+ * - over HTTP at http://localhost:METRICS_PORT/metrics. Parallel forks cannot share a port, so each fork takes
+ *   the first free port of METRICS_PORT .. METRICS_PORT + 15 and prints it.
+ * - and/or as METRICS_TEXTFILE_DIR/appium_runner_&lt;pid&gt;.prom for the node_exporter textfile collector,
+ *   rewritten every METRICS_TEXTFILE_INTERVAL_SECONDS and when the JVM exits.
+ *
+ * Every sample carries a pid label so the forks of one run can be told apart. Both outputs are off by default.
+ */
+public final class RunnerMetrics {
+
+    private static final int PORT_FALLBACK_RANGE = 16;
+    private static final double[] SECONDS_BUCKETS = {0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+    private static final String PID = String.valueOf(ProcessHandle.current().pid());
+
+    // Registered metrics by name, sorted so every scrape lists them in the same order
+    private static final Map<String, Metric> registry = new ConcurrentSkipListMap<>();
+
+    public static final Gauge SESSIONS_OPEN = gauge("appium_sessions_open",
+            "Sessions opened by this JVM and not quit yet", "platform");
+    public static final Gauge SESSIONS_PENDING = gauge("appium_sessions_pending",
+            "New session requests waiting for a device and driver startup", "platform");
+    public static final Histogram SESSION_CREATION_SECONDS = histogram("appium_session_creation_seconds",
+            "Time to open a new session", "platform", "outcome");
+    public static final Counter SESSION_LEASES = counter("appium_session_leases_total",
+            "Sessions handed to tests by source (pool, standby or new)", "source");
+    public static final Histogram COMMAND_SECONDS = histogram("appium_command_seconds",
+            "Round-trip time of WebDriver commands", "command");
+    public static final Counter COMMAND_FAILURES = counter("appium_command_failures_total",
+            "WebDriver commands that failed", "command");
+    public static final Gauge UPLOAD_QUEUE_DEPTH = gauge("appium_upload_queue_depth",
+            "Uploads waiting for an upload thread or for a concurrent upload of the same build");
+    public static final Gauge UPLOADS_IN_PROGRESS = gauge("appium_uploads_in_progress",
+            "Uploads running in this JVM");
+    public static final Histogram UPLOAD_SECONDS = histogram("appium_upload_seconds",
+            "Time of application uploads, including ledger checks and waits on concurrent uploads", "status");
+    public static final Counter TRANSACTIONS = counter("appium_performance_transactions_total",
+            "Performance Transactions ended", "transaction");
+    public static final Histogram TRANSACTION_DURATION_SECONDS = histogram("appium_performance_transaction_duration_seconds",
+            "Duration of Performance Transactions as reported by the cloud", "transaction");
+    public static final Counter BUDGET_VIOLATIONS = counter("appium_performance_budget_violations_total",
+            "Performance budget violations", "transaction", "metric");
+    public static final Counter REGRESSIONS = counter("appium_performance_regressions_total",
+            "Run-over-run performance regressions", "transaction", "metric");
+
+    static {
+        startHttpServer(EnvironmentConfig.getMetricsPort());
+        startTextfileWriter(EnvironmentConfig.getMetricsTextfileDir(), EnvironmentConfig.getMetricsTextfileIntervalSeconds());
+    }
+
+    private RunnerMetrics() {}
+
+    public static Counter counter(String name, String help, String... labelNames) {
+        return register(new Counter(name, help, labelNames));
+    }
+
+    public static Gauge gauge(String name, String help, String... labelNames) {
+        return register(new Gauge(name, help, labelNames));
+    }
+
+    public static Histogram histogram(String name, String help, String... labelNames) {
+        return register(new Histogram(name, help, SECONDS_BUCKETS, labelNames));
+    }
+
+    // Gauge read from the supplier at every scrape, e.g. the depth of a queue
+    public static void gaugeFunction(String name, String help, DoubleSupplier supplier) {
+        register(new FunctionGauge(name, help, supplier));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Metric> T register(T metric) {
+        Metric existing = registry.putIfAbsent(metric.name, metric);
+        return existing != null ? (T) existing : metric;
+    }
+
+    // All metrics in the Prometheus text format (version 0.0.4)
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        for (Metric metric : registry.values()) {
+            out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            out.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+            metric.write(out);
+        }
+        return out.toString();
+    }
+
+    private static void startHttpServer(int port) {
+        if (port <= 0) {
+            return;
+        }
+        // Started from a daemon thread so the server threads are daemons too and never keep a fork alive
+        Thread starter = new Thread(() -> {
+            for (int candidate = port; candidate < port + PORT_FALLBACK_RANGE; candidate++) {
+                try {
+                    HttpServer server = HttpServer.create(new InetSocketAddress(candidate), 0);
+                    server.createContext("/metrics", exchange -> {
+                        byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                        exchange.sendResponseHeaders(200, body.length);
+                        try (OutputStream responseBody = exchange.getResponseBody()) {
+                            responseBody.write(body);
+                        }
+                    });
+                    server.start();
+                    System.out.println("RunnerMetrics - Serving metrics at http://localhost:" + candidate + "/metrics");
+                    return;
+                } catch (BindException e) {
+                    // Taken by another fork, try the next port
+                } catch (IOException e) {
+                    System.err.println("RunnerMetrics - Could not start metrics server: " + e.getMessage());
+                    return;
+                }
+            }
+            System.err.println("RunnerMetrics - No free port in " + port + ".." + (port + PORT_FALLBACK_RANGE - 1));
+        }, "runner-metrics-http");
+        starter.setDaemon(true);
+        starter.start();
+    }
+
+    private static void startTextfileWriter(String directory, int intervalSeconds) {
+        if (directory.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(directory, "appium_runner_" + PID + ".prom");
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "runner-metrics-textfile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> writeTextfile(file), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writeTextfile(file), "runner-metrics-textfile-final"));
+        System.out.println("RunnerMetrics - Writing metrics to " + file);
+    }
+
+    // The collector may read at any time, so the file is replaced atomically
+    private static void writeTextfile(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tempFile, scrape().getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("RunnerMetrics - Could not write " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void appendSample(StringBuilder out, String name, List<String> labelNames, List<String> labelValues,
+                                     String extraLabel, String extraValue, double value) {
+        out.append(name).append("{pid=\"").append(PID).append('"');
+        for (int i = 0; i < labelNames.size(); i++) {
+            appendLabel(out, labelNames.get(i), labelValues.get(i));
+        }
+        if (extraLabel != null) {
+            appendLabel(out, extraLabel, extraValue);
+        }
+        out.append("} ").append(formatValue(value)).append('\n');
+    }
+
+    private static void appendLabel(StringBuilder out, String name, String value) {
+        String escaped = String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        out.append(',').append(name).append("=\"").append(escaped).append('"');
+    }
+
+    private static String formatValue(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    /**
+     * A metric with one time series per combination of label values.
+     */
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String type;
+        final List<String> labelNames;
+
+        Metric(String name, String help, String type, String... labelNames) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labelNames = Collections.unmodifiableList(Arrays.asList(labelNames));
+        }
+
+        List<String> key(String... labelValues) {
+            if (labelValues.length != labelNames.size()) {
+                throw new IllegalArgumentException(name + " expects labels " + labelNames + " but got " + Arrays.toString(labelValues));
+            }
+            return Arrays.asList(labelValues);
+        }
+
+        abstract void write(StringBuilder out);
+    }
+
+    public static final class Counter extends Metric {
+        private final Map<List<String>, DoubleAdder> series = new ConcurrentHashMap<>();
+
+        private Counter(String name, String help, String... labelNames) {
+            super(name, help, "counter", labelNames);
+        }
+
+        public void inc(String... labelValues) {
+            series.computeIfAbsent(key(labelValues), k -> new DoubleAdder()).add(1);
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            series.forEach((labels, value) -> appendSample(out, name, labelNames, labels, null, null, value.sum()));
+        }
+    }
+
+    public static final class Gauge extends Metric {
+        private final Map<List<String>, DoubleAdder> series = new ConcurrentHashMap<>();
+
+        private Gauge(String name, String help, String... labelNames) {
+            super(name, help, "gauge", labelNames);
+        }
+
+        public void inc(String... labelValues) {
+            add(1, labelValues);
+        }
+
+        public void dec(String... labelValues) {
+            add(-1, labelValues);
+        }
+
+        private void add(double amount, String... labelValues) {
+            series.computeIfAbsent(key(labelValues), k -> new DoubleAdder()).add(amount);
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            series.forEach((labels, value) -> appendSample(out, name, labelNames, labels, null, null, value.sum()));
+        }
+    }
+
+    private static final class FunctionGauge extends Metric {
+        private final DoubleSupplier supplier;
+
+        private FunctionGauge(String name, String help, DoubleSupplier supplier) {
+            super(name, help, "gauge");
+            this.supplier = supplier;
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            appendSample(out, name, labelNames, Collections.emptyList(), null, null, supplier.getAsDouble());
+        }
+    }
+
+    public static final class Histogram extends Metric {
+        private final double[] buckets;
+        private final Map<List<String>, HistogramSeries> series = new ConcurrentHashMap<>();
+
+        private Histogram(String name, String help, double[] buckets, String... labelNames) {
+            super(name, help, "histogram", labelNames);
+            this.buckets = buckets;
+        }
+
+        public void observeNanos(long nanos, String... labelValues) {
+            observe(nanos / 1e9, labelValues);
+        }
+
+        public void observe(double value, String... labelValues) {
+            HistogramSeries values = series.computeIfAbsent(key(labelValues), k -> new HistogramSeries(buckets.length));
+            int bucket = 0;
+            while (bucket < buckets.length && value > buckets[bucket]) {
+                bucket++;
+            }
+            // The last counter is the +Inf bucket
+            values.counts[bucket].increment();
+            values.sum.add(value);
+        }
+
+        @Override
+        void write(StringBuilder out) {
+            series.forEach((labels, values) -> {
+                long cumulative = 0;
+                for (int i = 0; i <= buckets.length; i++) {
+                    cumulative += values.counts[i].sum();
+                    String bound = i < buckets.length ? formatValue(buckets[i]) : "+Inf";
+                    appendSample(out, name + "_bucket", labelNames, labels, "le", bound, cumulative);
+                }
+                appendSample(out, name + "_sum", labelNames, labels, null, null, values.sum.sum());
+                appendSample(out, name + "_count", labelNames, labels, null, null, cumulative);
+            });
+        }
+    }
+
+    private static final class HistogramSeries {
+        private final LongAdder[] counts;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        private HistogramSeries(int bucketCount) {
+            counts = new LongAdder[bucketCount + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package utils;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.InteractsWithApps;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import io.appium.java_client.ios.IOSDriver;
+import io.appium.java_client.ios.options.XCUITestOptions;
+import org.openqa.selenium.Capabilities;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps Appium sessions open between tests so that test classes with several @Test methods
+ * do not pay for a device reservation and app install on every method.
+ *
+ * Sessions are keyed by a capability fingerprint (platform, app, device query, automation name,
+ * instrumentApp, test name). Releasing a session resets the app (terminate + activate) and parks it for the
+ * next lease with the same fingerprint; sessions that cannot be reset are quit instead.
+ * Idle sessions are quit when the JVM exits. When no idle session is available, a standby opened by
+ * {@link SessionPreProvisioner} is used before falling back to creating a new session.
+ *
+ * The test name is part of the fingerprint so that each digitalai:testName keeps its own report in the cloud.
+ * Tests that change the installed build (installApp) should not pool their sessions.
+ * Set SESSION_POOL_ENABLED=false to disable pooling.
+ */
+public class SessionPool {
+
+    private static final Map<String, Deque<PooledSession>> idleSessions = new ConcurrentHashMap<>();
+    private static final Map<String, PooledSession> leasedSessions = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionPool::quitIdleSessions, "session-pool-shutdown"));
+        RunnerMetrics.gaugeFunction("appium_session_pool_idle", "Sessions idle in the session pool",
+                () -> idleSessions.values().stream().mapToInt(Deque::size).sum());
+        RunnerMetrics.gaugeFunction("appium_session_pool_leased", "Sessions leased from the session pool",
+                leasedSessions::size);
+    }
+
+    private SessionPool() {}
+
+    public static AndroidDriver leaseAndroidDriver(UiAutomator2Options options) throws MalformedURLException {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        return lease(options, AndroidDriver.class, caps -> InstrumentedDrivers.newAndroidDriver(cloudUrl, caps));
+    }
+
+    public static IOSDriver leaseIOSDriver(XCUITestOptions options) throws MalformedURLException {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        return lease(options, IOSDriver.class, caps -> InstrumentedDrivers.newIOSDriver(cloudUrl, caps));
+    }
+
+    public static <T extends AppiumDriver> T lease(Capabilities options, Class<T> driverType,
+                                                   Function<Capabilities, T> sessionFactory) {
+        String fingerprint = fingerprint(options);
+        String appId = getAppId(options);
+
+        if (EnvironmentConfig.isSessionPoolEnabled() && appId != null) {
+            PooledSession pooled = pollIdleSession(fingerprint, appId);
+            if (pooled != null) {
+                System.out.println("SessionPool - Reusing session " + pooled.driver.getSessionId() + " for " + fingerprint);
+                leasedSessions.put(sessionKey(pooled.driver), pooled);
+                RunnerMetrics.SESSION_LEASES.inc("pool");
+                return driverType.cast(pooled.driver);
+            }
+        }
+
+        T driver = SessionPreProvisioner.take(options, driverType, sessionFactory);
+        leasedSessions.put(sessionKey(driver), new PooledSession(driver, fingerprint, appId));
+        return driver;
+    }
+
+    // Returns the session to the pool, or quits it when pooling is disabled or the app cannot be reset
+    public static void release(AppiumDriver driver) {
+        if (driver == null) {
+            return;
+        }
+
+        PooledSession pooled = leasedSessions.remove(sessionKey(driver));
+        if (pooled == null || pooled.appId == null || !EnvironmentConfig.isSessionPoolEnabled()) {
+            driver.quit();
+            return;
+        }
+
+        Deque<PooledSession> idle = idleSessions.computeIfAbsent(pooled.fingerprint, key -> new ConcurrentLinkedDeque<>());
+        if (idle.size() >= EnvironmentConfig.getSessionPoolMaxIdlePerKey() || !resetAppState(pooled)) {
+            quitQuietly(pooled.driver);
+            return;
+        }
+
+        pooled.lastReleasedNanos = System.nanoTime();
+        idle.offerFirst(pooled);
+    }
+
+    public static String fingerprint(Capabilities options) {
+        return String.join("|",
+                String.valueOf(options.getCapability("platformName")),
+                String.valueOf(getCapability(options, "app")),
+                String.valueOf(options.getCapability("digitalai:deviceQuery")),
+                String.valueOf(getCapability(options, "automationName")),
+                String.valueOf(options.getCapability("digitalai:instrumentApp")),
+                String.valueOf(options.getCapability("digitalai:testName")));
+    }
+
+    public static void quitIdleSessions() {
+        for (Deque<PooledSession> idle : idleSessions.values()) {
+            PooledSession pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                quitQuietly(pooled.driver);
+            }
+        }
+    }
+
+    private static PooledSession pollIdleSession(String fingerprint, String appId) {
+        Deque<PooledSession> idle = idleSessions.get(fingerprint);
+        if (idle == null) {
+            return null;
+        }
+
+        long maxIdleNanos = TimeUnit.SECONDS.toNanos(EnvironmentConfig.getSessionPoolMaxIdleSeconds());
+        PooledSession pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            // The cloud drops sessions after newCommandTimeout, so stale sessions are discarded rather than probed
+            if (System.nanoTime() - pooled.lastReleasedNanos > maxIdleNanos) {
+                quitQuietly(pooled.driver);
+                continue;
+            }
+            try {
+                ((InteractsWithApps) pooled.driver).queryAppState(appId);
+                return pooled;
+            } catch (Exception e) {
+                System.out.println("SessionPool - Discarding unresponsive session: " + e.getMessage());
+                quitQuietly(pooled.driver);
+            }
+        }
+        return null;
+    }
+
+    private static boolean resetAppState(PooledSession pooled) {
+        try {
+            InteractsWithApps apps = (InteractsWithApps) pooled.driver;
+            apps.terminateApp(pooled.appId);
+            apps.activateApp(pooled.appId);
+            return true;
+        } catch (Exception e) {
+            System.out.println("SessionPool - Could not reset " + pooled.appId + ", closing session: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static String getAppId(Capabilities options) {
+        Object appPackage = getCapability(options, "appPackage");
+        if (appPackage != null) {
+            return appPackage.toString();
+        }
+        Object bundleId = getCapability(options, "bundleId");
+        return bundleId != null ? bundleId.toString() : null;
+    }
+
+    private static Object getCapability(Capabilities options, String name) {
+        Object value = options.getCapability(name);
+        return value != null ? value : options.getCapability("appium:" + name);
+    }
+
+    private static String sessionKey(AppiumDriver driver) {
+        return String.valueOf(driver.getSessionId());
+    }
+
+    private static void quitQuietly(AppiumDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            System.out.println("SessionPool - Failed to quit session: " + e.getMessage());
+        }
+    }
+
+    private static class PooledSession {
+        private final AppiumDriver driver;
+        private final String fingerprint;
+        private final String appId;
+        private volatile long lastReleasedNanos;
+
+        private PooledSession(AppiumDriver driver, String fingerprint, String appId) {
+            this.driver = driver;
+            this.fingerprint = fingerprint;
+            this.appId = appId;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package utils;
+
+import io.appium.java_client.AppiumDriver;
+import io.appium.java_client.android.AndroidDriver;
+import io.appium.java_client.android.options.UiAutomator2Options;
+import io.appium.java_client.ios.IOSDriver;
+import io.appium.java_client.ios.options.XCUITestOptions;
+import org.openqa.selenium.Capabilities;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Opens the next test's session in the background while the current test is still running.
+ *
+ * A test calls prewarm...() with the same options it used in its setup method; the next take...()
+ * with an identical capability fingerprint receives the standby session instead of waiting for a
+ * device reservation, app install and driver startup. At most one standby is kept per fingerprint.
+ * A standby is only opened while another test method of the running class is pending (counted by
+ * the PendingTestMethods listener), and at most SESSION_PREWARM_MAX_PARALLEL are provisioned at once.
+ * Standby sessions that are not taken within SESSION_STANDBY_TTL_SECONDS are quit.
+ */
+public class SessionPreProvisioner {
+
+    // For all standby sessions together, not per session
+    private static final long SHUTDOWN_WAIT_SECONDS = 60;
+
+    private static final Map<String, CompletableFuture<AppiumDriver>> standbySessions = new ConcurrentHashMap<>();
+    private static final ExecutorService provisioningExecutor = Executors.newFixedThreadPool(
+            Math.max(EnvironmentConfig.getSessionPrewarmMaxParallel(), 1), runnable -> {
+                Thread thread = new Thread(runnable, "session-pre-provisioner");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static volatile boolean shuttingDown;
+    private static final ScheduledExecutorService expiryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-standby-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionPreProvisioner::quitStandbySessions, "session-pre-provisioner-shutdown"));
+        RunnerMetrics.gaugeFunction("appium_session_standby", "Standby sessions being provisioned or waiting for a test",
+                standbySessions::size);
+    }
+
+    private SessionPreProvisioner() {}
+
+    public static AndroidDriver takeAndroidDriver(UiAutomator2Options options) throws MalformedURLException {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        return take(options, AndroidDriver.class, caps -> InstrumentedDrivers.newAndroidDriver(cloudUrl, caps));
+    }
+
+    public static IOSDriver takeIOSDriver(XCUITestOptions options) throws MalformedURLException {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        return take(options, IOSDriver.class, caps -> InstrumentedDrivers.newIOSDriver(cloudUrl, caps));
+    }
+
+    public static void prewarmAndroidDriver(UiAutomator2Options options) throws MalformedURLException {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        prewarm(options, caps -> InstrumentedDrivers.newAndroidDriver(cloudUrl, caps));
+    }
+
+    public static void prewarmIOSDriver(XCUITestOptions options) throws MalformedURLException {
+        URL cloudUrl = new URL(EnvironmentConfig.getCloudUrl());
+        prewarm(options, caps -> InstrumentedDrivers.newIOSDriver(cloudUrl, caps));
+    }
+
+    // Returns the standby session for these options if one was prewarmed, otherwise opens a session synchronously
+    public static <T extends AppiumDriver> T take(Capabilities options, Class<T> driverType,
+                                                  Function<Capabilities, T> sessionFactory) {
+        CompletableFuture<AppiumDriver> standby = standbySessions.remove(SessionPool.fingerprint(options));
+        if (standby != null) {
+            try {
+                AppiumDriver driver = standby.join();
+                System.out.println("SessionPreProvisioner - Using standby session " + driver.getSessionId());
+                RunnerMetrics.SESSION_LEASES.inc("standby");
+                return driverType.cast(driver);
+            } catch (Exception e) {
+                System.out.println("SessionPreProvisioner - Standby session failed, creating a new one: " + e.getMessage());
+            }
+        }
+        RunnerMetrics.SESSION_LEASES.inc("new");
+        return sessionFactory.apply(options);
+    }
+
+    public static <T extends AppiumDriver> void prewarm(Capabilities options, Function<Capabilities, T> sessionFactory) {
+        if (!EnvironmentConfig.isSessionPrewarmEnabled()) {
+            return;
+        }
+        String fingerprint = SessionPool.fingerprint(options);
+        int remaining = PendingTestMethods.remainingInCurrentClass();
+        if (remaining < 2) {
+            // The running test is the last one of its class (or the PendingTestMethods listener is not registered)
+            System.out.println("SessionPreProvisioner - No pending test for " + fingerprint + ", not provisioning a standby session");
+            return;
+        }
+
+        CompletableFuture<AppiumDriver> standby = new CompletableFuture<>();
+        if (standbySessions.putIfAbsent(fingerprint, standby) != null) {
+            return;
+        }
+
+        System.out.println("SessionPreProvisioner - Provisioning standby session for " + fingerprint);
+        CompletableFuture.supplyAsync(() -> {
+                    // Queued behind other standbys when the JVM started shutting down
+                    if (shuttingDown) {
+                        throw new IllegalStateException("Shutting down, standby session not opened");
+                    }
+                    return (AppiumDriver) sessionFactory.apply(options);
+                }, provisioningExecutor)
+                .whenComplete((driver, error) -> {
+                    if (error != null) {
+                        standby.completeExceptionally(error);
+                        standbySessions.remove(fingerprint, standby);
+                        return;
+                    }
+                    standby.complete(driver);
+                    expiryScheduler.schedule(() -> {
+                        if (standbySessions.remove(fingerprint, standby)) {
+                            System.out.println("SessionPreProvisioner - Standby session " + driver.getSessionId() + " expired unused");
+                            quitQuietly(driver);
+                        }
+                    }, EnvironmentConfig.getSessionStandbyTtlSeconds(), TimeUnit.SECONDS);
+                });
+    }
+
+    public static void quitStandbySessions() {
+        shuttingDown = true;
+        List<CompletableFuture<Object>> quits = new ArrayList<>();
+        for (String fingerprint : standbySessions.keySet()) {
+            CompletableFuture<AppiumDriver> standby = standbySessions.remove(fingerprint);
+            if (standby != null) {
+                // A reservation still in flight would otherwise hold the device until the cloud times it out
+                quits.add(standby.handle((driver, error) -> {
+                    if (driver != null) {
+                        quitQuietly(driver);
+                    }
+                    return null;
+                }));
+            }
+        }
+        try {
+            CompletableFuture.allOf(quits.toArray(new CompletableFuture[0])).get(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            long notClosed = quits.stream().filter(quit -> !quit.isDone()).count();
+            System.out.println("SessionPreProvisioner - " + notClosed + " standby session(s) not closed: " + e.getMessage());
+        }
+    }
+
+    private static void quitQuietly(AppiumDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            System.out.println("SessionPreProvisioner - Failed to quit session: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a local span tree of one test from the WebDriver commands of its driver.
+ *
+ * Every seetest:client.startStepsGroup / stopStepsGroup pair (sent directly or through PerformanceHelpers) becomes
+ * a span, and every other driver command becomes a child span of the innermost open group, or of the test span
+ * outside of groups. Groups can be nested. finish() closes the groups the test did not stop, marked as errors when
+ * the test failed, and writes the tree to reports/traces/ in the OTLP JSON format, so it can be loaded into any
+ * OpenTelemetry compatible viewer.
+ *
+ * Only commands of drivers created through {@link InstrumentedDrivers} (including pooled sessions) are traced.
+ */
+public class StepsGroupTracer implements DriverCommandListener {
+
+    private static final Path TRACES_DIR = Paths.get("reports", "traces");
+    private static final String START_GROUP = "seetest:client.startStepsGroup";
+    private static final String STOP_GROUP = "seetest:client.stopStepsGroup";
+    // OTLP span kinds and status codes
+    private static final int KIND_INTERNAL = 1;
+    private static final int KIND_CLIENT = 3;
+    private static final int STATUS_OK = 1;
+    private static final int STATUS_ERROR = 2;
+
+    private final RemoteWebDriver driver;
+    private final String testName;
+    private final String traceId = randomHex(16);
+    // Spans are timed with nanoTime and converted to epoch time on export
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Span root;
+    private final List<Span> spans = new ArrayList<>();
+    private final Deque<Span> openGroups = new ArrayDeque<>();
+    private boolean finished;
+
+    private StepsGroupTracer(RemoteWebDriver driver, String testName) {
+        this.driver = driver;
+        this.testName = testName;
+        Instant now = Instant.now();
+        this.startEpochNanos = TimeUnit.SECONDS.toNanos(now.getEpochSecond()) + now.getNano();
+        this.startNanos = System.nanoTime();
+        this.root = new Span(testName, null, KIND_INTERNAL, startNanos);
+        spans.add(root);
+    }
+
+    // Starts tracing the driver's commands as the given test
+    public static StepsGroupTracer attach(RemoteWebDriver driver, String testName) {
+        StepsGroupTracer tracer = new StepsGroupTracer(driver, testName);
+        if (!InstrumentedDrivers.addListener(driver, tracer)) {
+            System.out.println("StepsGroupTracer - Driver was not created through InstrumentedDrivers, only the test span is traced for " + testName);
+        }
+        return tracer;
+    }
+
+    @Override
+    public synchronized void beforeCommand(Command command) {
+        if (finished || !START_GROUP.equals(scriptOf(command))) {
+            return;
+        }
+        Object name = firstArgumentOf(command);
+        Span group = new Span(name != null ? name.toString() : "steps group", currentParent(), KIND_INTERNAL, System.nanoTime());
+        group.attributes.put("steps.group", group.name);
+        spans.add(group);
+        openGroups.push(group);
+    }
+
+    @Override
+    public synchronized void afterCommand(Command command, Response response, long durationNanos) {
+        recordCommand(command, durationNanos, null);
+    }
+
+    @Override
+    public synchronized void onCommandError(Command command, Throwable error, long durationNanos) {
+        recordCommand(command, durationNanos, error);
+    }
+
+    private void recordCommand(Command command, long durationNanos, Throwable error) {
+        if (finished) {
+            return;
+        }
+        long endNanos = System.nanoTime();
+        Span span = new Span(InstrumentedDrivers.describe(command), currentParent(), KIND_CLIENT, endNanos - durationNanos);
+        span.attributes.put("webdriver.command", command.getName());
+        spans.add(span);
+        span.end(endNanos, error != null ? error.getClass().getSimpleName() + ": " + firstLine(error.getMessage()) : null);
+
+        // The stop command belongs to the group it closes
+        if (STOP_GROUP.equals(scriptOf(command)) && !openGroups.isEmpty()) {
+            openGroups.pop().end(endNanos, null);
+        }
+    }
+
+    /**
+     * Stops tracing and writes the span tree. Groups still open are closed; when the test failed they are marked
+     * as errors with the failure, like the test span itself. Returns the written file, or null if it could not be
+     * written.
+     */
+    public synchronized Path finish(Throwable failure) {
+        if (finished) {
+            return null;
+        }
+        finished = true;
+        InstrumentedDrivers.removeListener(driver, this);
+
+        long endNanos = System.nanoTime();
+        String error = failure != null ? failure.getClass().getSimpleName() + ": " + firstLine(failure.getMessage()) : null;
+        while (!openGroups.isEmpty()) {
+            Span group = openGroups.pop();
+            group.attributes.put("steps.group.autoClosed", true);
+            group.end(endNanos, error);
+        }
+        root.end(endNanos, error);
+
+        Path file = TRACES_DIR.resolve(testName.replaceAll("[^\\w.-]+", "_") + "-"
+                + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")) + ".json");
+        try {
+            Files.createDirectories(TRACES_DIR);
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            mapper.writeValue(file.toFile(), toOtlpJson(mapper));
+        } catch (IOException e) {
+            System.err.println("StepsGroupTracer - Could not write trace of " + testName + ": " + e.getMessage());
+            return null;
+        }
+        System.out.println("StepsGroupTracer - " + spans.size() + " spans of " + testName + " written to " + file);
+        return file;
+    }
+
+    private ObjectNode toOtlpJson(ObjectMapper mapper) {
+        ObjectNode document = mapper.createObjectNode();
+        ObjectNode resourceSpans = document.putArray("resourceSpans").addObject();
+
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("service.name", "appium-tests");
+        Capabilities capabilities = driver.getCapabilities();
+        if (capabilities != null) {
+            resource.put("device.platform", String.valueOf(capabilities.getPlatformName()));
+            Object deviceName = capabilities.getCapability("deviceName");
+            if (deviceName != null) {
+                resource.put("device.name", deviceName.toString());
+            }
+        }
+        if (driver.getSessionId() != null) {
+            resource.put("webdriver.session.id", driver.getSessionId().toString());
+        }
+        putAttributes(resourceSpans.putObject("resource").putArray("attributes"), resource);
+
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", StepsGroupTracer.class.getName());
+        ArrayNode spanNodes = scopeSpans.putArray("spans");
+        for (Span span : spans) {
+            ObjectNode node = spanNodes.addObject();
+            node.put("traceId", traceId);
+            node.put("spanId", span.spanId);
+            if (span.parent != null) {
+                node.put("parentSpanId", span.parent.spanId);
+            }
+            node.put("name", span.name);
+            node.put("kind", span.kind);
+            // 64 bit integers are strings in OTLP JSON
+            node.put("startTimeUnixNano", Long.toString(toEpochNanos(span.startNanos)));
+            node.put("endTimeUnixNano", Long.toString(toEpochNanos(span.endNanos)));
+            putAttributes(node.putArray("attributes"), span.attributes);
+            ObjectNode status = node.putObject("status");
+            status.put("code", span.error != null ? STATUS_ERROR : STATUS_OK);
+            if (span.error != null) {
+                status.put("message", span.error);
+            }
+        }
+        return document;
+    }
+
+    private static void putAttributes(ArrayNode attributes, Map<String, Object> values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            ObjectNode attribute = attributes.addObject();
+            attribute.put("key", entry.getKey());
+            if (entry.getValue() instanceof Boolean) {
+                attribute.putObject("value").put("boolValue", (Boolean) entry.getValue());
+            } else {
+                attribute.putObject("value").put("stringValue", String.valueOf(entry.getValue()));
+            }
+        }
+    }
+
+    private long toEpochNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanos);
+    }
+
+    private Span currentParent() {
+        return openGroups.isEmpty() ? root : openGroups.peek();
+    }
+
+    private static String scriptOf(Command command) {
+        Map<String, ?> parameters = command.getParameters();
+        Object script = parameters != null ? parameters.get("script") : null;
+        return script != null ? script.toString() : null;
+    }
+
+    private static Object firstArgumentOf(Command command) {
+        Object args = command.getParameters().get("args");
+        return args instanceof List && !((List<?>) args).isEmpty() ? ((List<?>) args).get(0) : null;
+    }
+
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "";
+        }
+        int newLine = message.indexOf('\n');
+        return newLine >= 0 ? message.substring(0, newLine) : message;
+    }
+
+    private static String randomHex(int bytes) {
+        StringBuilder hex = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            hex.append(String.format("%02x", ThreadLocalRandom.current().nextInt(256)));
+        }
+        return hex.toString();
+    }
+
+    private static class Span {
+        private final String name;
+        private final String spanId = randomHex(8);
+        private final Span parent;
+        private final int kind;
+        private final long startNanos;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private long endNanos;
+        private String error;
+
+        private Span(String name, Span parent, int kind, long startNanos) {
+            this.name = name;
+            this.parent = parent;
+            this.kind = kind;
+            this.startNanos = startNanos;
+        }
+
+        private void end(long endNanos, String error) {
+            this.endNanos = endNanos;
+            this.error = error;
+        }
+    }
+}
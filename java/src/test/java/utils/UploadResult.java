@@ -0,0 +1,58 @@
+package utils;
+
+/**
+ * Outcome of an application upload through {@link ApplicationUploadUtil}.
+ */
+public class UploadResult {
+
+    public enum Status {
+        UPLOADED,
+        ALREADY_EXISTS,
+        FAILED
+    }
+
+    private final Status status;
+    private final String uniqueName;
+    private final String message;
+    private final long durationMillis;
+    private final boolean fromLedger;
+
+    public UploadResult(Status status, String uniqueName, String message, long durationMillis, boolean fromLedger) {
+        this.status = status;
+        this.uniqueName = uniqueName;
+        this.message = message;
+        this.durationMillis = durationMillis;
+        this.fromLedger = fromLedger;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getUniqueName() {
+        return uniqueName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    // True when the upload was skipped because the upload ledger already knew the build
+    public boolean isFromLedger() {
+        return fromLedger;
+    }
+
+    public boolean isAvailable() {
+        return status != Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s in %d ms%s: %s", uniqueName, status, durationMillis,
+                fromLedger ? " (ledger)" : "", message);
+    }
+}
@@ -0,0 +1,97 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets exactly one caller perform an upload for a given key while other callers wait for its result.
+ *
+ * Threads in the same JVM share the leader's future. Across Gradle test forks the leader additionally
+ * holds an exclusive lock on build/locks/upload-&lt;key&gt;.lock, so a fork that arrives while another fork
+ * is uploading blocks until that upload finishes (and can then find it in the upload ledger).
+ */
+public class UploadSingleFlight {
+
+    private static final Path LOCK_DIR = Paths.get("build", "locks");
+    private static final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private UploadSingleFlight() {}
+
+    @SuppressWarnings("unchecked")
+    public static <T> T execute(String key, Supplier<T> action) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            System.out.println("UploadSingleFlight - Waiting for in-progress upload " + shortKey(key));
+            RunnerMetrics.UPLOAD_QUEUE_DEPTH.inc();
+            try {
+                return (T) leader.join();
+            } finally {
+                RunnerMetrics.UPLOAD_QUEUE_DEPTH.dec();
+            }
+        }
+
+        try {
+            T result = runWithProcessLock(key, action);
+            flight.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors too, otherwise the waiters would block forever
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static <T> T runWithProcessLock(String key, Supplier<T> action) {
+        FileChannel channel = null;
+        FileLock lock = null;
+        // Waiting for another fork's upload of the same build counts as queued
+        RunnerMetrics.UPLOAD_QUEUE_DEPTH.inc();
+        try {
+            Files.createDirectories(LOCK_DIR);
+            channel = FileChannel.open(LOCK_DIR.resolve("upload-" + shortKey(key) + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = channel.lock();
+        } catch (IOException e) {
+            System.err.println("UploadSingleFlight - Could not lock upload, continuing without cross-fork lock: " + e.getMessage());
+        } finally {
+            RunnerMetrics.UPLOAD_QUEUE_DEPTH.dec();
+        }
+
+        RunnerMetrics.UPLOADS_IN_PROGRESS.inc();
+        try {
+            return action.get();
+        } finally {
+            RunnerMetrics.UPLOADS_IN_PROGRESS.dec();
+            closeQuietly(lock, channel);
+        }
+    }
+
+    private static void closeQuietly(FileLock lock, FileChannel channel) {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("UploadSingleFlight - Could not release upload lock: " + e.getMessage());
+        }
+    }
+
+    private static String shortKey(String key) {
+        return key.length() > 16 ? key.substring(0, 16) : key;
+    }
+}